@@ -0,0 +1,130 @@
+package com.portal.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.portal.dto.Job;
+import com.portal.dto.PageResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response and request JSON handling before and after the Blackbird/byte path. The {@code string*}
+ * benchmarks reproduce the former code: a reflective mapper writing Strings and reading bodies that
+ * were first decoded into a String. {@code bytesToJson} is the UTF-8 generator path this started
+ * with; {@code toJson} and {@code readJsonBody} call the current code.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private static final ObjectMapper STRING_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @State(Scope.Benchmark)
+    public static class Responses {
+
+        /** {@code job}: one job as GET /api/job returns it; {@code page}: a page of 20 as /api/joblist does. */
+        @Param({"job", "page"})
+        public String payload;
+
+        Object response;
+        final ApiResponseFactory responseFactory = new ApiResponseFactory(new ResponseCompressor());
+
+        @Setup
+        public void setUp() {
+            List<Job> jobs = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                jobs.add(job(i));
+            }
+            response = payload.equals("job") ? jobs.get(0)
+                    : PageResponse.of(jobs, 0, 20, 240L, true, true, "MjAyNi0xMC0wMSAwOTozMDowMCswMHw");
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Requests {
+
+        /** Whether API Gateway delivered the PUT /api/job body base64-encoded. */
+        @Param({"false", "true"})
+        public boolean base64;
+
+        String body;
+        final ApiGatewayRequestParser requestParser = new ApiGatewayRequestParser();
+
+        @Setup
+        public void setUp() throws Exception {
+            byte[] json = STRING_MAPPER.writeValueAsBytes(job(0));
+            body = base64 ? Base64.getEncoder().encodeToString(json) : new String(json, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public String stringToJson(Responses state) throws Exception {
+        return STRING_MAPPER.writeValueAsString(state.response);
+    }
+
+    /** The byte path as first written: Jackson's UTF-8 generator, then a String for API Gateway. */
+    @Benchmark
+    public String bytesToJson(Responses state) throws Exception {
+        return new String(ApiResponseFactory.objectMapper().writeValueAsBytes(state.response), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String toJson(Responses state) {
+        return state.responseFactory.toJson(state.response);
+    }
+
+    /** A gzipped or content-hashed response, which needs the UTF-8 bytes. */
+    @Benchmark
+    public byte[] toJsonBytes(Responses state) {
+        return state.responseFactory.toJson(state.response).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Job stringReadJsonBody(Requests state) throws Exception {
+        String body = state.base64
+                ? new String(Base64.getDecoder().decode(state.body), StandardCharsets.UTF_8) : state.body;
+        return STRING_MAPPER.readValue(body, Job.class);
+    }
+
+    /** Includes the decoding that readContext does once per request. */
+    @Benchmark
+    public Job readJsonBody(Requests state) throws Exception {
+        byte[] body = state.base64
+                ? Base64.getDecoder().decode(state.body) : state.body.getBytes(StandardCharsets.UTF_8);
+        RequestContext request = new RequestContext("PUT", "/api/job", "PUT /api/job", "ADMIN", null,
+                Map.of(), Map.of(), null, null, body);
+        return state.requestParser.readJsonBody(request, Job.class);
+    }
+
+    private static Job job(int i) {
+        return new Job(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "Acme Robotics " + i,
+                "Senior Backend Engineer " + i,
+                "Design and run the services behind our hiring portal. ".repeat(8),
+                "5+ years building JVM services; PostgreSQL; AWS Lambda",
+                "B.Sc. in Computer Science or equivalent experience",
+                "OPEN", 17 + i, false, null, "2026-09-01 08:00:00.123456+00", "2026-10-01 09:30:00+00");
+    }
+}
@@ -0,0 +1,95 @@
+package com.portal.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * validateUuid and validateEmail before and after the hand-written scanners, on valid and invalid
+ * input. Run with {@code -prof gc}: {@code gc.alloc.rate.norm} is the allocation per call. The
+ * {@code regex*} benchmarks reproduce the former code, which parsed with {@link UUID#fromString},
+ * matched with {@link String#matches} and threw IllegalArgumentException with a stack trace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"true", "false"})
+    public boolean valid;
+
+    private String uuid;
+    private String email;
+
+    @Setup
+    public void setUp() {
+        uuid = valid ? "7d3c9c2e-0b1a-4f7e-9a43-5f2b8e6a1c10" : "7d3c9c2e-0b1a-4f7e-9a43-5f2b8e6a1cZ0";
+        email = valid ? "jane.doe+jobs@example.com" : "jane.doe@example com";
+    }
+
+    @Benchmark
+    public boolean regexValidateUuid() {
+        try {
+            if (uuid == null || uuid.isBlank()) {
+                throw new IllegalArgumentException("Field 'id' must be a valid UUID");
+            }
+            try {
+                UUID.fromString(uuid);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Field 'id' must be a valid UUID");
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean validateUuid() {
+        try {
+            ValidationUtil.validateUuid(uuid, "id");
+            return true;
+        } catch (ValidationException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean regexValidateEmail() {
+        try {
+            if (email == null || email.isBlank()) {
+                throw new IllegalArgumentException("Field 'email' is required");
+            }
+            if (!email.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$")) {
+                throw new IllegalArgumentException("Field 'email' must be a valid email address");
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean validateEmail() {
+        try {
+            ValidationUtil.validateEmail(email);
+            return true;
+        } catch (ValidationException e) {
+            return false;
+        }
+    }
+}
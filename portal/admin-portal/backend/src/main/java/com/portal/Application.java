@@ -1,8 +1,17 @@
 package com.portal;
 
+import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
 import com.portal.handler.ApiRouterHandler;
+import com.portal.util.DeadlineJdbcTemplate;
+import com.portal.util.PoolMetrics;
+import com.portal.util.SchemaIndexCheck;
+import com.portal.util.SchemaMigrator;
+import com.portal.util.WriteRetrier;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
 import org.springframework.boot.autoconfigure.availability.ApplicationAvailabilityAutoConfiguration;
@@ -12,13 +21,22 @@ import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration
 import org.springframework.boot.autoconfigure.jmx.JmxAutoConfiguration;
 import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.boot.autoconfigure.task.TaskSchedulingAutoConfiguration;
+import org.springframework.cloud.function.adapter.aws.AWSLambdaUtils;
 import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.simple.JdbcClient;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.messaging.Message;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
 import java.util.function.Function;
 
+import static com.portal.util.EnvUtil.readBooleanEnv;
+import static com.portal.util.EnvUtil.readEnv;
+import static com.portal.util.EnvUtil.readLongEnv;
+
 @SpringBootApplication(exclude = {
         JmxAutoConfiguration.class,
         AopAutoConfiguration.class,
@@ -36,30 +54,93 @@ public class Application {
     }
 
     @Bean
-    public Function<APIGatewayV2HTTPEvent, APIGatewayV2HTTPResponse> apiRouter(ApiRouterHandler handler) {
-        return handler::handle;
+    public Function<Message<APIGatewayV2HTTPEvent>, APIGatewayV2HTTPResponse> apiRouter(ApiRouterHandler handler) {
+        // Taken as a Message so the Lambda context (and its remaining time) comes along
+        return message -> handler.handle(message.getPayload(),
+                message.getHeaders().get(AWSLambdaUtils.AWS_CONTEXT, Context.class));
     }
 
     @Bean
-    public DataSource dataSource() {
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics(readLongEnv("DB_POOL_METRICS_LOG_INTERVAL_SECS", 60));
+    }
+
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource(PoolMetrics poolMetrics) {
         String endpoint = readEnv("DSQL_ENDPOINT", "localhost");
         String database = readEnv("DSQL_DATABASE", "postgres");
         String user = readEnv("DSQL_DB_USER", "app_user");
         String url = "jdbc:aws-dsql:postgresql://" + endpoint + "/" + database + "?user=" + user;
 
-        DriverManagerDataSource ds = new DriverManagerDataSource();
-        ds.setDriverClassName("software.amazon.dsql.jdbc.DSQLConnector");
-        ds.setUrl(url);
-        return ds;
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("dsql");
+        config.setDriverClassName("software.amazon.dsql.jdbc.DSQLConnector");
+        config.setJdbcUrl(url);
+        // The connector caches IAM auth tokens per endpoint/user and regenerates them before
+        // they expire, so new physical connections reuse the cached token.
+        config.addDataSourceProperty("token-duration-secs", readEnv("DB_TOKEN_DURATION_SECS", "900"));
+        // Lets bulk upserts send one multi-row INSERT per JDBC batch instead of one per row.
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
+        // Service SQL is built once, so the same text repeats on every call: promote it to a named
+        // server-side prepared statement on first use and keep it cached per connection.
+        config.addDataSourceProperty("prepareThreshold", readEnv("DB_PREPARE_THRESHOLD", "1"));
+        config.addDataSourceProperty("preparedStatementCacheQueries", "256");
+        // Lambda serves one request at a time per container; long-running deployments raise these.
+        config.setMaximumPoolSize((int) readLongEnv("DB_POOL_MAX_SIZE", 2));
+        config.setMinimumIdle((int) readLongEnv("DB_POOL_MIN_IDLE", 1));
+        config.setConnectionTimeout(readLongEnv("DB_POOL_CONNECTION_TIMEOUT_MS", 5_000));
+        config.setValidationTimeout(readLongEnv("DB_POOL_VALIDATION_TIMEOUT_MS", 2_000));
+        config.setIdleTimeout(readLongEnv("DB_POOL_IDLE_TIMEOUT_MS", 300_000));
+        config.setKeepaliveTime(readLongEnv("DB_POOL_KEEPALIVE_MS", 240_000));
+        // DSQL closes connections after 60 minutes; retire them well before that.
+        config.setMaxLifetime(readLongEnv("DB_POOL_MAX_LIFETIME_MS", 3_000_000));
+        // Do not open connections while the context starts (or while a SnapStart snapshot is taken).
+        config.setInitializationFailTimeout(-1);
+        config.setMetricsTrackerFactory(poolMetrics);
+        return new HikariDataSource(config);
     }
 
     @Bean
-    public JdbcClient jdbcClient(DataSource dataSource) {
-        return JdbcClient.create(dataSource);
+    public NamedParameterJdbcTemplate namedParameterJdbcTemplate(DataSource dataSource) {
+        return new NamedParameterJdbcTemplate(new DeadlineJdbcTemplate(dataSource));
     }
 
-    private static String readEnv(String key, String defaultValue) {
-        String value = System.getenv(key);
-        return (value == null || value.isBlank()) ? defaultValue : value;
+    @Bean
+    public JdbcClient jdbcClient(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        return JdbcClient.create(namedParameterJdbcTemplate);
+    }
+
+    @Bean
+    public TransactionTemplate transactionTemplate(DataSource dataSource) {
+        return new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Bean
+    public WriteRetrier writeRetrier(TransactionTemplate transactionTemplate) {
+        return new WriteRetrier(transactionTemplate,
+                (int) readLongEnv("DB_WRITE_MAX_ATTEMPTS", 4),
+                readLongEnv("DB_WRITE_BACKOFF_BASE_MS", 20),
+                readLongEnv("DB_WRITE_BACKOFF_MAX_MS", 400),
+                readLongEnv("DB_WRITE_RETRY_BUDGET", 20));
+    }
+
+    /**
+     * Schema migration is a deploy step, run as {@code Application --migrate} from sam_deploy.bat
+     * before the new version takes traffic; a Lambda cold start never runs DDL. In Lambda only the
+     * index check runs, failing startup on a missing index unless {@code DB_VERIFY_INDEXES=false}.
+     */
+    @Bean
+    public ApplicationRunner schemaSetup(DataSource dataSource, NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        return args -> {
+            if (args.containsOption("migrate")) {
+                new SchemaMigrator(new JdbcTemplate(dataSource), readLongEnv("DB_MIGRATE_BASELINE_VERSION", 0)).migrate();
+                return;
+            }
+            if (readBooleanEnv("DB_VERIFY_INDEXES", true)) {
+                new SchemaIndexCheck(namedParameterJdbcTemplate).verify();
+                // Keep the connection used by the check out of a SnapStart snapshot.
+                ((HikariDataSource) dataSource).getHikariPoolMXBean().softEvictConnections();
+            }
+        };
     }
 }
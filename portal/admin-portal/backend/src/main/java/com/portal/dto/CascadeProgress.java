@@ -0,0 +1,11 @@
+package com.portal.dto;
+
+/**
+ * Progress of a cascade that runs in bounded chunks. When {@code complete} is false the request
+ * is repeated with {@code cursor} to continue after the last processed row.
+ */
+public record CascadeProgress(
+        int processed,
+        boolean complete,
+        String cursor
+) {}
@@ -0,0 +1,12 @@
+package com.portal.dto;
+
+public record PageRequest(
+        int page,
+        int size,
+        String cursor,
+        boolean withTotal
+) {
+    public boolean hasCursor() {
+        return cursor != null && !cursor.isBlank();
+    }
+}
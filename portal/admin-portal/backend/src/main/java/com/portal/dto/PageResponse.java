@@ -2,15 +2,26 @@ package com.portal.dto;
 
 import java.util.List;
 
+/**
+ * A page of results. {@code totalElements} and {@code totalPages} are null when the caller asked
+ * for the page without totals ({@code withTotal=false}); {@code totalExact} is false when the total
+ * came from the count cache rather than the page query. {@code hasNext} is always set.
+ */
 public record PageResponse<T>(
         List<T> content,
         int page,
         int size,
-        long totalElements,
-        int totalPages
+        Long totalElements,
+        Integer totalPages,
+        Boolean totalExact,
+        boolean hasNext,
+        String nextCursor
 ) {
-    public static <T> PageResponse<T> of(List<T> content, int page, int size, long totalElements) {
-        int totalPages = size > 0 ? (int) Math.ceil((double) totalElements / size) : 0;
-        return new PageResponse<>(content, page, size, totalElements, totalPages);
+    public static <T> PageResponse<T> of(List<T> content, int page, int size, Long totalElements,
+                                         boolean totalExact, boolean hasNext, String nextCursor) {
+        Integer totalPages = totalElements == null ? null
+                : size > 0 ? (int) Math.ceil((double) totalElements / size) : 0;
+        Boolean exact = totalElements == null ? null : totalExact;
+        return new PageResponse<>(content, page, size, totalElements, totalPages, exact, hasNext, nextCursor);
     }
 }
@@ -1,18 +1,22 @@
 package com.portal.handler;
 
-import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
 import com.portal.dto.Candidate;
+import com.portal.dto.PageRequest;
 import com.portal.service.CandidateService;
 import com.portal.service.PhotoPresignService;
 import com.portal.util.ApiGatewayRequestParser;
 import com.portal.util.ApiResponseFactory;
+import com.portal.util.DeadlineExceededException;
+import com.portal.util.RequestContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 @Component
 public class CandidateCrudApiHandler {
@@ -24,11 +28,7 @@ public class CandidateCrudApiHandler {
     private static final String ROUTE_PUT_DISABLE = "PUT /api/candidate/disable";
     private static final String ROUTE_PUT_ENABLE = "PUT /api/candidate/enable";
     private static final String ROUTE_GET_PHOTO_DOWNLOAD = "GET /api/candidate/photo/download-url";
-
-    private static final Set<String> HANDLED_ROUTES = Set.of(
-            ROUTE_GET_CANDIDATE, ROUTE_GET_CANDIDATE_LIST,
-            ROUTE_DELETE_CANDIDATE, ROUTE_PUT_DISABLE, ROUTE_PUT_ENABLE,
-            ROUTE_GET_PHOTO_DOWNLOAD);
+    private static final String ROUTE_PUT_BULK = "PUT /api/candidates/bulk";
 
     private final CandidateService candidateService;
     private final PhotoPresignService photoPresignService;
@@ -43,49 +43,44 @@ public class CandidateCrudApiHandler {
         this.requestParser = requestParser;
     }
 
-    public boolean canHandle(String method, String path) {
-        return HANDLED_ROUTES.contains(routeKey(method, path));
-    }
-
-    public APIGatewayV2HTTPResponse handle(APIGatewayV2HTTPEvent event) {
-        String path = requestParser.readPath(event);
-        String method = requestParser.readMethod(event);
-
-        return switch (routeKey(method, path)) {
-            case ROUTE_GET_CANDIDATE -> handleGet(event);
-            case ROUTE_GET_CANDIDATE_LIST -> handleList(event);
-            case ROUTE_DELETE_CANDIDATE -> handleDelete(event);
-            case ROUTE_PUT_DISABLE -> handleDisable(event);
-            case ROUTE_PUT_ENABLE -> handleEnable(event);
-            case ROUTE_GET_PHOTO_DOWNLOAD -> handlePhotoDownloadUrl(event);
-            default -> responseFactory.notFound("Route not found");
-        };
+    void registerRoutes(RouteTable.Builder routes) {
+        routes.add(ROUTE_GET_CANDIDATE, this::handleGet);
+        routes.add(ROUTE_GET_CANDIDATE_LIST, this::handleList);
+        routes.add(ROUTE_DELETE_CANDIDATE, this::handleDelete);
+        routes.add(ROUTE_PUT_DISABLE, this::handleDisable);
+        routes.add(ROUTE_PUT_ENABLE, this::handleEnable);
+        routes.add(ROUTE_GET_PHOTO_DOWNLOAD, this::handlePhotoDownloadUrl);
+        routes.add(ROUTE_PUT_BULK, this::handleBulkPut);
     }
 
-    private APIGatewayV2HTTPResponse handleGet(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
+    private APIGatewayV2HTTPResponse handleGet(RequestContext request) {
+        String id = request.queryParam("id");
         if (id == null || id.isBlank()) return responseFactory.badRequest("Query parameter 'id' is required");
         try {
             Candidate candidate = candidateService.findById(id);
             if (candidate == null) return responseFactory.notFound("Candidate not found");
-            return responseFactory.ok(candidate);
+            return responseFactory.ok(candidate, request.ifNoneMatch());
         } catch (IllegalArgumentException e) {
             return responseFactory.badRequest(e.getMessage());
         }
     }
 
-    private APIGatewayV2HTTPResponse handleList(APIGatewayV2HTTPEvent event) {
-        int page = requestParser.readIntQueryParam(event, "page", 0);
-        int size = requestParser.readIntQueryParam(event, "size", 20);
-        String includeDeleted = requestParser.readQueryParam(event, "includeDeleted");
-        if ("true".equals(includeDeleted)) {
-            return responseFactory.ok(candidateService.listAllIncludingDeleted(page, size));
+    private APIGatewayV2HTTPResponse handleList(RequestContext request) {
+        PageRequest pageRequest = request.pageRequest();
+        String includeDeleted = request.queryParam("includeDeleted");
+        String fields = request.queryParam("fields");
+        try {
+            if ("true".equals(includeDeleted)) {
+                return responseFactory.ok(candidateService.listAllIncludingDeleted(pageRequest, fields), request.ifNoneMatch());
+            }
+            return responseFactory.ok(candidateService.listCandidates(pageRequest, fields), request.ifNoneMatch());
+        } catch (IllegalArgumentException e) {
+            return responseFactory.badRequest(e.getMessage());
         }
-        return responseFactory.ok(candidateService.listCandidates(page, size));
     }
 
-    private APIGatewayV2HTTPResponse handleDelete(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
+    private APIGatewayV2HTTPResponse handleDelete(RequestContext request) {
+        String id = request.queryParam("id");
         if (id == null || id.isBlank()) return responseFactory.badRequest("Query parameter 'id' is required");
         try {
             Candidate removed = candidateService.softDelete(id);
@@ -96,8 +91,8 @@ public class CandidateCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handleDisable(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
+    private APIGatewayV2HTTPResponse handleDisable(RequestContext request) {
+        String id = request.queryParam("id");
         if (id == null || id.isBlank()) return responseFactory.badRequest("Query parameter 'id' is required");
         try {
             Candidate result = candidateService.disable(id);
@@ -108,8 +103,8 @@ public class CandidateCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handleEnable(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
+    private APIGatewayV2HTTPResponse handleEnable(RequestContext request) {
+        String id = request.queryParam("id");
         if (id == null || id.isBlank()) return responseFactory.badRequest("Query parameter 'id' is required");
         try {
             Candidate result = candidateService.enable(id);
@@ -120,8 +115,8 @@ public class CandidateCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handlePhotoDownloadUrl(APIGatewayV2HTTPEvent event) {
-        String userId = requestParser.readQueryParam(event, "userId");
+    private APIGatewayV2HTTPResponse handlePhotoDownloadUrl(RequestContext request) {
+        String userId = request.queryParam("userId");
         if (userId == null || userId.isBlank())
             return responseFactory.badRequest("Query parameter 'userId' is required");
         try {
@@ -129,15 +124,22 @@ public class CandidateCrudApiHandler {
                 return responseFactory.notFound("No photo uploaded");
             String downloadUrl = photoPresignService.generateDownloadUrl(userId);
             return responseFactory.ok(Map.of("downloadUrl", downloadUrl));
+        } catch (DeadlineExceededException | ApiCallTimeoutException e) {
+            throw e; // answered with 503 by ApiRouterHandler
         } catch (Exception e) {
             log.error("Failed to generate photo download URL for user '{}'", userId, e);
             return responseFactory.serverError("Failed to generate download URL");
         }
     }
 
-    private static String routeKey(String method, String path) {
-        String safeMethod = method == null ? "" : method.toUpperCase();
-        String safePath = path == null ? "" : path;
-        return safeMethod + " " + safePath;
+    private APIGatewayV2HTTPResponse handleBulkPut(RequestContext request) {
+        try {
+            List<Candidate> rows = requestParser.readBulkBody(request, Candidate.class);
+            return responseFactory.ok(candidateService.upsertAll(rows));
+        } catch (IOException e) {
+            return responseFactory.badRequest("Invalid JSON body");
+        } catch (IllegalArgumentException e) {
+            return responseFactory.badRequest(e.getMessage());
+        }
     }
 }
@@ -1,19 +1,25 @@
 package com.portal.handler;
 
-import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.portal.dto.CascadeProgress;
 import com.portal.dto.Company;
+import com.portal.dto.PageRequest;
 import com.portal.service.CompanyService;
 import com.portal.service.PhotoPresignService;
 import com.portal.util.ApiGatewayRequestParser;
 import com.portal.util.ApiResponseFactory;
+import com.portal.util.DeadlineExceededException;
+import com.portal.util.RequestContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
 
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 @Component
 public class CompanyCrudApiHandler {
@@ -27,11 +33,7 @@ public class CompanyCrudApiHandler {
     private static final String ROUTE_PUT_ENABLE = "PUT /api/company/enable";
     private static final String ROUTE_GET_LOGO_UPLOAD = "GET /api/company/logo/upload-url";
     private static final String ROUTE_GET_LOGO_DOWNLOAD = "GET /api/company/logo/download-url";
-
-    private static final Set<String> HANDLED_ROUTES = Set.of(
-            ROUTE_GET_COMPANY, ROUTE_GET_COMPANY_LIST,
-            ROUTE_DELETE_COMPANY, ROUTE_PUT_COMPANY, ROUTE_PUT_DISABLE, ROUTE_PUT_ENABLE,
-            ROUTE_GET_LOGO_UPLOAD, ROUTE_GET_LOGO_DOWNLOAD);
+    private static final String ROUTE_PUT_BULK = "PUT /api/companies/bulk";
 
     private final CompanyService companyService;
     private final PhotoPresignService photoPresignService;
@@ -46,29 +48,20 @@ public class CompanyCrudApiHandler {
         this.requestParser = requestParser;
     }
 
-    public boolean canHandle(String method, String path) {
-        return HANDLED_ROUTES.contains(routeKey(method, path));
-    }
-
-    public APIGatewayV2HTTPResponse handle(APIGatewayV2HTTPEvent event) {
-        String path = requestParser.readPath(event);
-        String method = requestParser.readMethod(event);
-
-        return switch (routeKey(method, path)) {
-            case ROUTE_GET_COMPANY -> handleGet(event);
-            case ROUTE_GET_COMPANY_LIST -> handleList(event);
-            case ROUTE_DELETE_COMPANY -> handleDelete(event);
-            case ROUTE_PUT_COMPANY -> handlePut(event);
-            case ROUTE_PUT_DISABLE -> handleDisable(event);
-            case ROUTE_PUT_ENABLE -> handleEnable(event);
-            case ROUTE_GET_LOGO_UPLOAD -> handleLogoUploadUrl(event);
-            case ROUTE_GET_LOGO_DOWNLOAD -> handleLogoDownloadUrl(event);
-            default -> responseFactory.notFound("Route not found");
-        };
+    void registerRoutes(RouteTable.Builder routes) {
+        routes.add(ROUTE_GET_COMPANY, this::handleGet);
+        routes.add(ROUTE_GET_COMPANY_LIST, this::handleList);
+        routes.add(ROUTE_DELETE_COMPANY, this::handleDelete);
+        routes.add(ROUTE_PUT_COMPANY, this::handlePut);
+        routes.add(ROUTE_PUT_DISABLE, this::handleDisable);
+        routes.add(ROUTE_PUT_ENABLE, this::handleEnable);
+        routes.add(ROUTE_GET_LOGO_UPLOAD, this::handleLogoUploadUrl);
+        routes.add(ROUTE_GET_LOGO_DOWNLOAD, this::handleLogoDownloadUrl);
+        routes.add(ROUTE_PUT_BULK, this::handleBulkPut);
     }
 
-    private APIGatewayV2HTTPResponse handleGet(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
+    private APIGatewayV2HTTPResponse handleGet(RequestContext request) {
+        String id = request.queryParam("id");
         if (id == null || id.isBlank()) return responseFactory.badRequest("Query parameter 'id' is required");
         try {
             Company company = companyService.findById(id);
@@ -79,21 +72,23 @@ public class CompanyCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handleList(APIGatewayV2HTTPEvent event) {
-        int page = requestParser.readIntQueryParam(event, "page", 0);
-        int size = requestParser.readIntQueryParam(event, "size", 20);
-        String includeDeleted = requestParser.readQueryParam(event, "includeDeleted");
-        if ("true".equals(includeDeleted)) {
-            return responseFactory.ok(companyService.listAllIncludingDeleted(page, size));
+    private APIGatewayV2HTTPResponse handleList(RequestContext request) {
+        PageRequest pageRequest = request.pageRequest();
+        String includeDeleted = request.queryParam("includeDeleted");
+        try {
+            if ("true".equals(includeDeleted)) {
+                return responseFactory.ok(companyService.listAllIncludingDeleted(pageRequest));
+            }
+            return responseFactory.ok(companyService.listCompanies(pageRequest));
+        } catch (IllegalArgumentException e) {
+            return responseFactory.badRequest(e.getMessage());
         }
-        return responseFactory.ok(companyService.listCompanies(page, size));
     }
 
-    private APIGatewayV2HTTPResponse handlePut(APIGatewayV2HTTPEvent event) {
-        String body = requestParser.readBody(event);
-        if (body == null || body.isBlank()) return responseFactory.badRequest("Body is required");
+    private APIGatewayV2HTTPResponse handlePut(RequestContext request) {
+        if (!request.hasBody()) return responseFactory.badRequest("Body is required");
         try {
-            Company company = ApiResponseFactory.objectMapper().readValue(body, Company.class);
+            Company company = requestParser.readJsonBody(request, Company.class);
             companyService.upsert(company);
             return responseFactory.ok(Map.of("message", "Company updated", "company", company));
         } catch (JsonProcessingException e) {
@@ -103,8 +98,8 @@ public class CompanyCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handleDelete(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
+    private APIGatewayV2HTTPResponse handleDelete(RequestContext request) {
+        String id = request.queryParam("id");
         if (id == null || id.isBlank()) return responseFactory.badRequest("Query parameter 'id' is required");
         try {
             Company removed = companyService.softDelete(id);
@@ -115,20 +110,28 @@ public class CompanyCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handleDisable(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
+    private APIGatewayV2HTTPResponse handleDisable(RequestContext request) {
+        String id = request.queryParam("id");
         if (id == null || id.isBlank()) return responseFactory.badRequest("Query parameter 'id' is required");
         try {
-            Company result = companyService.disable(id);
-            if (result == null) return responseFactory.notFound("Company not found");
-            return responseFactory.ok(Map.of("message", "Company disabled and all open jobs closed", "id", id));
+            CascadeProgress progress = companyService.disable(id, request.queryParam("cursor"));
+            if (progress == null) return responseFactory.notFound("Company not found");
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("message", progress.complete()
+                    ? "Company disabled and all open jobs closed"
+                    : "Company disabled; repeat with cursor to close remaining open jobs");
+            body.put("id", id);
+            body.put("jobsClosed", progress.processed());
+            body.put("complete", progress.complete());
+            body.put("cursor", progress.cursor());
+            return responseFactory.ok(body);
         } catch (IllegalArgumentException e) {
             return responseFactory.badRequest(e.getMessage());
         }
     }
 
-    private APIGatewayV2HTTPResponse handleEnable(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
+    private APIGatewayV2HTTPResponse handleEnable(RequestContext request) {
+        String id = request.queryParam("id");
         if (id == null || id.isBlank()) return responseFactory.badRequest("Query parameter 'id' is required");
         try {
             Company result = companyService.enable(id);
@@ -139,23 +142,25 @@ public class CompanyCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handleLogoUploadUrl(APIGatewayV2HTTPEvent event) {
-        String userId = requestParser.readQueryParam(event, "userId");
+    private APIGatewayV2HTTPResponse handleLogoUploadUrl(RequestContext request) {
+        String userId = request.queryParam("userId");
         if (userId == null || userId.isBlank())
             return responseFactory.badRequest("Query parameter 'userId' is required");
-        String contentType = requestParser.readQueryParam(event, "contentType");
+        String contentType = request.queryParam("contentType");
         if (contentType == null || contentType.isBlank()) contentType = "image/jpeg";
         try {
             String uploadUrl = photoPresignService.generateLogoUploadUrl(userId, contentType);
             return responseFactory.ok(Map.of("uploadUrl", uploadUrl, "key", "companies/" + userId + "/logo"));
+        } catch (DeadlineExceededException | ApiCallTimeoutException e) {
+            throw e; // answered with 503 by ApiRouterHandler
         } catch (Exception e) {
             log.error("Failed to generate logo upload URL for user '{}'", userId, e);
             return responseFactory.serverError("Failed to generate upload URL");
         }
     }
 
-    private APIGatewayV2HTTPResponse handleLogoDownloadUrl(APIGatewayV2HTTPEvent event) {
-        String userId = requestParser.readQueryParam(event, "userId");
+    private APIGatewayV2HTTPResponse handleLogoDownloadUrl(RequestContext request) {
+        String userId = request.queryParam("userId");
         if (userId == null || userId.isBlank())
             return responseFactory.badRequest("Query parameter 'userId' is required");
         try {
@@ -163,15 +168,22 @@ public class CompanyCrudApiHandler {
                 return responseFactory.notFound("No logo uploaded");
             String downloadUrl = photoPresignService.generateLogoDownloadUrl(userId);
             return responseFactory.ok(Map.of("downloadUrl", downloadUrl));
+        } catch (DeadlineExceededException | ApiCallTimeoutException e) {
+            throw e; // answered with 503 by ApiRouterHandler
         } catch (Exception e) {
             log.error("Failed to generate logo download URL for user '{}'", userId, e);
             return responseFactory.serverError("Failed to generate download URL");
         }
     }
 
-    private static String routeKey(String method, String path) {
-        String safeMethod = method == null ? "" : method.toUpperCase();
-        String safePath = path == null ? "" : path;
-        return safeMethod + " " + safePath;
+    private APIGatewayV2HTTPResponse handleBulkPut(RequestContext request) {
+        try {
+            List<Company> rows = requestParser.readBulkBody(request, Company.class);
+            return responseFactory.ok(companyService.upsertAll(rows));
+        } catch (IOException e) {
+            return responseFactory.badRequest("Invalid JSON body");
+        } catch (IllegalArgumentException e) {
+            return responseFactory.badRequest(e.getMessage());
+        }
     }
 }
@@ -1,84 +1,87 @@
 package com.portal.handler;
 
-import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.portal.dto.Job;
+import com.portal.dto.PageRequest;
+import com.portal.service.ApplicantCountService;
 import com.portal.service.JobService;
 import com.portal.util.ApiGatewayRequestParser;
 import com.portal.util.ApiResponseFactory;
+import com.portal.util.RequestContext;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 @Component
 public class JobCrudApiHandler {
 
     private static final String ROUTE_GET_JOB = "GET /api/job";
+    private static final String ROUTE_GET_JOB_BY_ID = "GET /api/job/{id}";
     private static final String ROUTE_GET_JOB_LIST = "GET /api/joblist";
     private static final String ROUTE_PUT_JOB = "PUT /api/job";
     private static final String ROUTE_DELETE_JOB = "DELETE /api/job";
-
-    private static final Set<String> HANDLED_ROUTES = Set.of(ROUTE_GET_JOB, ROUTE_GET_JOB_LIST, ROUTE_PUT_JOB, ROUTE_DELETE_JOB);
+    private static final String ROUTE_PUT_BULK = "PUT /api/jobs/bulk";
+    private static final String ROUTE_PUT_RECONCILE_APPLICANTS = "PUT /api/job/applicants/reconcile";
 
     private final JobService jobService;
+    private final ApplicantCountService applicantCountService;
     private final ApiResponseFactory responseFactory;
     private final ApiGatewayRequestParser requestParser;
 
-    public JobCrudApiHandler(JobService jobService, ApiResponseFactory responseFactory, ApiGatewayRequestParser requestParser) {
+    public JobCrudApiHandler(JobService jobService, ApplicantCountService applicantCountService,
+                             ApiResponseFactory responseFactory, ApiGatewayRequestParser requestParser) {
         this.jobService = jobService;
+        this.applicantCountService = applicantCountService;
         this.responseFactory = responseFactory;
         this.requestParser = requestParser;
     }
 
-    public boolean canHandle(String method, String path) {
-        return HANDLED_ROUTES.contains(routeKey(method, path));
+    void registerRoutes(RouteTable.Builder routes) {
+        routes.add(ROUTE_GET_JOB, this::handleGet);
+        routes.add(ROUTE_GET_JOB_BY_ID, this::handleGet);
+        routes.add(ROUTE_GET_JOB_LIST, this::handleList);
+        routes.add(ROUTE_PUT_JOB, this::handlePut);
+        routes.add(ROUTE_DELETE_JOB, this::handleDelete);
+        routes.add(ROUTE_PUT_BULK, this::handleBulkPut);
+        routes.add(ROUTE_PUT_RECONCILE_APPLICANTS, this::handleReconcileApplicants);
     }
 
-    public APIGatewayV2HTTPResponse handle(APIGatewayV2HTTPEvent event) {
-        String path = requestParser.readPath(event);
-        String method = requestParser.readMethod(event);
-
-        return switch (routeKey(method, path)) {
-            case ROUTE_GET_JOB -> handleGet(event);
-            case ROUTE_GET_JOB_LIST -> handleList(event);
-            case ROUTE_PUT_JOB -> handlePut(event);
-            case ROUTE_DELETE_JOB -> handleDelete(event);
-            default -> responseFactory.notFound("Route not found");
-        };
-    }
-
-    private APIGatewayV2HTTPResponse handleGet(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
+    private APIGatewayV2HTTPResponse handleGet(RequestContext request) {
+        String id = request.param("id");
         if (id == null || id.isBlank()) return responseFactory.badRequest("Query parameter 'id' is required");
         try {
             Job job = jobService.findById(id);
             if (job == null) return responseFactory.notFound("Job not found");
-            return responseFactory.ok(job);
+            return responseFactory.ok(job, request.ifNoneMatch());
         } catch (IllegalArgumentException e) {
             return responseFactory.badRequest(e.getMessage());
         }
     }
 
-    private APIGatewayV2HTTPResponse handleList(APIGatewayV2HTTPEvent event) {
-        int page = requestParser.readIntQueryParam(event, "page", 0);
-        int size = requestParser.readIntQueryParam(event, "size", 20);
-        String companyId = requestParser.readQueryParam(event, "companyId");
-        String status = requestParser.readQueryParam(event, "status");
-        String includeDeleted = requestParser.readQueryParam(event, "includeDeleted");
+    private APIGatewayV2HTTPResponse handleList(RequestContext request) {
+        PageRequest pageRequest = request.pageRequest();
+        String companyId = request.queryParam("companyId");
+        String status = request.queryParam("status");
+        String includeDeleted = request.queryParam("includeDeleted");
+        String fields = request.queryParam("fields");
 
-        if ("true".equals(includeDeleted)) {
-            return responseFactory.ok(jobService.listAllIncludingDeleted(page, size));
+        try {
+            if ("true".equals(includeDeleted)) {
+                return responseFactory.ok(jobService.listAllIncludingDeleted(pageRequest, fields), request.ifNoneMatch());
+            }
+            return responseFactory.ok(jobService.listJobs(pageRequest, companyId, status, fields), request.ifNoneMatch());
+        } catch (IllegalArgumentException e) {
+            return responseFactory.badRequest(e.getMessage());
         }
-        return responseFactory.ok(jobService.listJobs(page, size, companyId, status));
     }
 
-    private APIGatewayV2HTTPResponse handlePut(APIGatewayV2HTTPEvent event) {
-        String body = requestParser.readBody(event);
-        if (body == null || body.isBlank()) return responseFactory.badRequest("Body is required");
+    private APIGatewayV2HTTPResponse handlePut(RequestContext request) {
+        if (!request.hasBody()) return responseFactory.badRequest("Body is required");
         try {
-            Job job = ApiResponseFactory.objectMapper().readValue(body, Job.class);
+            Job job = requestParser.readJsonBody(request, Job.class);
             jobService.updateJob(job);
             return responseFactory.ok(Map.of("message", "Job updated", "job", job));
         } catch (JsonProcessingException e) {
@@ -88,8 +91,8 @@ public class JobCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handleDelete(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
+    private APIGatewayV2HTTPResponse handleDelete(RequestContext request) {
+        String id = request.queryParam("id");
         if (id == null || id.isBlank()) return responseFactory.badRequest("Query parameter 'id' is required");
         try {
             Job removed = jobService.softDelete(id);
@@ -100,9 +103,30 @@ public class JobCrudApiHandler {
         }
     }
 
-    private static String routeKey(String method, String path) {
-        String safeMethod = method == null ? "" : method.toUpperCase();
-        String safePath = path == null ? "" : path;
-        return safeMethod + " " + safePath;
+    private APIGatewayV2HTTPResponse handleBulkPut(RequestContext request) {
+        try {
+            List<Job> rows = requestParser.readBulkBody(request, Job.class);
+            return responseFactory.ok(jobService.createJobs(rows));
+        } catch (IOException e) {
+            return responseFactory.badRequest("Invalid JSON body");
+        } catch (IllegalArgumentException e) {
+            return responseFactory.badRequest(e.getMessage());
+        }
+    }
+
+    private APIGatewayV2HTTPResponse handleReconcileApplicants(RequestContext request) {
+        String id = request.queryParam("id");
+        try {
+            if (id != null && !id.isBlank()) {
+                Job job = applicantCountService.reconcile(id);
+                if (job == null) return responseFactory.notFound("Job not found");
+                return responseFactory.ok(job);
+            }
+            String after = request.queryParam("after");
+            int limit = request.intQueryParam("limit", 100);
+            return responseFactory.ok(applicantCountService.reconcileAll(after, limit));
+        } catch (IllegalArgumentException e) {
+            return responseFactory.badRequest(e.getMessage());
+        }
     }
 }
@@ -0,0 +1,163 @@
+package com.portal.handler;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import com.portal.util.LogThrottle;
+import com.portal.util.RequestContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Routes compiled once at startup from {@code "METHOD /path"} keys. A literal path resolves with a
+ * method lookup and a path lookup on the strings API Gateway already supplied, without building a
+ * key. Paths with {@code {name}} segments are matched segment by segment only when no literal
+ * route fits, and the captured values are returned with the match. Each route counts its
+ * invocations; the counts are logged periodically.
+ */
+final class RouteTable {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteTable.class);
+
+    private final Map<String, Map<String, Route>> literal;
+    private final Map<String, List<Route>> templated;
+    private final List<Route> all;
+    private final LogThrottle logThrottle;
+
+    static final class Route {
+
+        private final String key;
+        private final String[] segments;
+        private final Function<RequestContext, APIGatewayV2HTTPResponse> handler;
+        private final LongAdder invocations = new LongAdder();
+        private final Match literalMatch = new Match(this, Map.of());
+
+        private Route(String key, String[] segments, Function<RequestContext, APIGatewayV2HTTPResponse> handler) {
+            this.key = key;
+            this.segments = segments;
+            this.handler = handler;
+        }
+
+        /** The key the route was registered under, e.g. {@code GET /api/job/{id}}. */
+        String key() {
+            return key;
+        }
+
+        APIGatewayV2HTTPResponse invoke(RequestContext request) {
+            invocations.increment();
+            return handler.apply(request);
+        }
+    }
+
+    /** A resolved route and the values its {@code {name}} segments captured. */
+    record Match(Route route, Map<String, String> pathParameters) {}
+
+    static final class Builder {
+
+        private final Map<String, Route> routes = new HashMap<>();
+
+        Builder add(String routeKey, Function<RequestContext, APIGatewayV2HTTPResponse> handler) {
+            int space = routeKey.indexOf(' ');
+            if (space <= 0 || !routeKey.startsWith("/", space + 1)) {
+                throw new IllegalArgumentException("Route key must look like 'METHOD /path': " + routeKey);
+            }
+            String path = routeKey.substring(space + 1);
+            String[] segments = path.contains("{") ? path.substring(1).split("/") : null;
+            if (routes.putIfAbsent(routeKey, new Route(routeKey, segments, handler)) != null) {
+                throw new IllegalStateException("Duplicate route: " + routeKey);
+            }
+            return this;
+        }
+
+        RouteTable build(long logIntervalSeconds) {
+            return new RouteTable(routes.values(), logIntervalSeconds);
+        }
+    }
+
+    private RouteTable(Iterable<Route> routes, long logIntervalSeconds) {
+        Map<String, Map<String, Route>> literal = new HashMap<>();
+        Map<String, List<Route>> templated = new HashMap<>();
+        List<Route> all = new ArrayList<>();
+        for (Route route : routes) {
+            int space = route.key.indexOf(' ');
+            String method = route.key.substring(0, space);
+            if (route.segments == null) {
+                literal.computeIfAbsent(method, m -> new HashMap<>()).put(route.key.substring(space + 1), route);
+            } else {
+                templated.computeIfAbsent(method, m -> new ArrayList<>()).add(route);
+            }
+            all.add(route);
+        }
+        this.literal = Map.copyOf(literal);
+        Map<String, List<Route>> frozen = new HashMap<>();
+        templated.forEach((method, list) -> frozen.put(method, List.copyOf(list)));
+        this.templated = Map.copyOf(frozen);
+        this.all = List.copyOf(all);
+        this.logThrottle = new LogThrottle(logIntervalSeconds);
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /** Finds the route for {@code method} and {@code path}, or null. */
+    Match resolve(String method, String path) {
+        if (logThrottle.tryAcquire()) {
+            log.info("Route invocations: {}", snapshot());
+        }
+        Match match = find(method, path);
+        if (match == null && !method.isEmpty()) {
+            String upper = method.toUpperCase(Locale.ROOT);
+            if (!upper.equals(method)) match = find(upper, path);
+        }
+        return match;
+    }
+
+    /** Invocation count per route key, in key order. */
+    Map<String, Long> snapshot() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Route route : all) {
+            counts.put(route.key, route.invocations.sum());
+        }
+        return counts;
+    }
+
+    private Match find(String method, String path) {
+        Map<String, Route> byPath = literal.get(method);
+        Route route = byPath == null ? null : byPath.get(path);
+        if (route != null) return route.literalMatch;
+        List<Route> candidates = templated.get(method);
+        if (candidates == null || path.length() < 2) return null;
+        String[] segments = path.substring(1).split("/");
+        for (Route candidate : candidates) {
+            Map<String, String> params = match(candidate.segments, segments);
+            if (params != null) {
+                return new Match(candidate, Collections.unmodifiableMap(params));
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> match(String[] template, String[] segments) {
+        if (template.length != segments.length) return null;
+        Map<String, String> params = new HashMap<>();
+        for (int i = 0; i < template.length; i++) {
+            String part = template[i];
+            if (part.startsWith("{") && part.endsWith("}")) {
+                if (segments[i].isEmpty()) return null;
+                params.put(part.substring(1, part.length() - 1), segments[i]);
+            } else if (!part.equals(segments[i])) {
+                return null;
+            }
+        }
+        return params;
+    }
+}
@@ -1,16 +1,18 @@
 package com.portal.handler;
 
-import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.portal.dto.User;
+import com.portal.dto.PageRequest;
 import com.portal.service.UserService;
 import com.portal.util.ApiGatewayRequestParser;
 import com.portal.util.ApiResponseFactory;
+import com.portal.util.RequestContext;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 @Component
 public class UserCrudApiHandler {
@@ -19,9 +21,7 @@ public class UserCrudApiHandler {
     private static final String ROUTE_GET_USER = "GET /api/user";
     private static final String ROUTE_GET_USER_LIST = "GET /api/userlist";
     private static final String ROUTE_DELETE_USER = "DELETE /api/user";
-
-    private static final Set<String> HANDLED_ROUTES = Set.of(
-            ROUTE_PUT_USER, ROUTE_GET_USER, ROUTE_GET_USER_LIST, ROUTE_DELETE_USER);
+    private static final String ROUTE_PUT_BULK = "PUT /api/users/bulk";
 
     private final UserService userService;
     private final ApiResponseFactory responseFactory;
@@ -33,28 +33,18 @@ public class UserCrudApiHandler {
         this.requestParser = requestParser;
     }
 
-    public boolean canHandle(String method, String path) {
-        return HANDLED_ROUTES.contains(routeKey(method, path));
-    }
-
-    public APIGatewayV2HTTPResponse handle(APIGatewayV2HTTPEvent event) {
-        String path = requestParser.readPath(event);
-        String method = requestParser.readMethod(event);
-
-        return switch (routeKey(method, path)) {
-            case ROUTE_PUT_USER -> handlePut(event);
-            case ROUTE_GET_USER -> handleGet(event);
-            case ROUTE_GET_USER_LIST -> handleList(event);
-            case ROUTE_DELETE_USER -> handleDelete(event);
-            default -> responseFactory.notFound("Route not found");
-        };
+    void registerRoutes(RouteTable.Builder routes) {
+        routes.add(ROUTE_PUT_USER, this::handlePut);
+        routes.add(ROUTE_GET_USER, this::handleGet);
+        routes.add(ROUTE_GET_USER_LIST, this::handleList);
+        routes.add(ROUTE_DELETE_USER, this::handleDelete);
+        routes.add(ROUTE_PUT_BULK, this::handleBulkPut);
     }
 
-    private APIGatewayV2HTTPResponse handlePut(APIGatewayV2HTTPEvent event) {
-        String body = requestParser.readBody(event);
-        if (body == null || body.isBlank()) return responseFactory.badRequest("Body is required");
+    private APIGatewayV2HTTPResponse handlePut(RequestContext request) {
+        if (!request.hasBody()) return responseFactory.badRequest("Body is required");
         try {
-            User user = ApiResponseFactory.objectMapper().readValue(body, User.class);
+            User user = requestParser.readJsonBody(request, User.class);
             userService.upsert(user);
             return responseFactory.ok(Map.of("message", "User upserted", "user", user));
         } catch (JsonProcessingException e) {
@@ -64,8 +54,8 @@ public class UserCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handleGet(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
+    private APIGatewayV2HTTPResponse handleGet(RequestContext request) {
+        String id = request.queryParam("id");
         if (id == null || id.isBlank()) return responseFactory.badRequest("Query parameter 'id' is required");
         try {
             User user = userService.findById(id);
@@ -76,14 +66,17 @@ public class UserCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handleList(APIGatewayV2HTTPEvent event) {
-        int page = requestParser.readIntQueryParam(event, "page", 0);
-        int size = requestParser.readIntQueryParam(event, "size", 20);
-        return responseFactory.ok(userService.listUsers(page, size));
+    private APIGatewayV2HTTPResponse handleList(RequestContext request) {
+        PageRequest pageRequest = request.pageRequest();
+        try {
+            return responseFactory.ok(userService.listUsers(pageRequest));
+        } catch (IllegalArgumentException e) {
+            return responseFactory.badRequest(e.getMessage());
+        }
     }
 
-    private APIGatewayV2HTTPResponse handleDelete(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
+    private APIGatewayV2HTTPResponse handleDelete(RequestContext request) {
+        String id = request.queryParam("id");
         if (id == null || id.isBlank()) return responseFactory.badRequest("Query parameter 'id' is required");
         try {
             User removed = userService.softDelete(id);
@@ -94,9 +87,14 @@ public class UserCrudApiHandler {
         }
     }
 
-    private static String routeKey(String method, String path) {
-        String safeMethod = method == null ? "" : method.toUpperCase();
-        String safePath = path == null ? "" : path;
-        return safeMethod + " " + safePath;
+    private APIGatewayV2HTTPResponse handleBulkPut(RequestContext request) {
+        try {
+            List<User> rows = requestParser.readBulkBody(request, User.class);
+            return responseFactory.ok(userService.upsertAll(rows));
+        } catch (IOException e) {
+            return responseFactory.badRequest("Invalid JSON body");
+        } catch (IllegalArgumentException e) {
+            return responseFactory.badRequest(e.getMessage());
+        }
     }
 }
@@ -0,0 +1,88 @@
+package com.portal.service;
+
+import com.portal.util.EntityCache;
+import com.portal.util.TableNames;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Service;
+
+import static com.portal.util.EnvUtil.readLongEnv;
+import static com.portal.util.ValidationUtil.*;
+
+/**
+ * Resolves a caller's JWT {@code sub} to the candidate or company profile it owns, reading only
+ * the id and status and caching the answer briefly. Profile writes in this container invalidate it
+ * by owner and by entity id; changes made elsewhere (e.g. an admin disabling a profile) are seen
+ * after {@code CALLER_IDENTITY_TTL_SECS}. Callers without a profile are not cached. Owner and
+ * entity ids are compared in canonical UUID form, whatever case the client sent.
+ */
+@Service
+public class CallerIdentityService {
+
+    public record CallerIdentity(String id, String status) {
+        public boolean active() {
+            return "ACTIVE".equals(status);
+        }
+    }
+
+    private static final String CANDIDATE_SQL = "SELECT id, status FROM %s WHERE user_id = CAST(:userId AS uuid) AND is_deleted = FALSE"
+            .formatted(TableNames.CANDIDATES);
+
+    private static final String COMPANY_SQL = "SELECT id, status FROM %s WHERE user_id = CAST(:userId AS uuid) AND is_deleted = FALSE"
+            .formatted(TableNames.COMPANIES);
+
+    private final JdbcClient jdbcClient;
+    private final EntityCache<CallerIdentity> candidates;
+    private final EntityCache<CallerIdentity> companies;
+
+    public CallerIdentityService(JdbcClient jdbcClient) {
+        this.jdbcClient = jdbcClient;
+        long ttlSeconds = readLongEnv("CALLER_IDENTITY_TTL_SECS", 15);
+        int maxEntries = (int) readLongEnv("CALLER_IDENTITY_MAX_ENTRIES", 1_000);
+        this.candidates = new EntityCache<>("caller-candidates", ttlSeconds, maxEntries);
+        this.companies = new EntityCache<>("caller-companies", ttlSeconds, maxEntries);
+    }
+
+    /** The candidate profile owned by {@code userId}, or null when there is none. */
+    public CallerIdentity candidate(String userId) {
+        validateUuid(userId, "userId");
+        return candidates.get(userId, key -> resolve(CANDIDATE_SQL, key));
+    }
+
+    /** The company profile owned by {@code userId}, or null when there is none. */
+    public CallerIdentity company(String userId) {
+        validateUuid(userId, "userId");
+        return companies.get(userId, key -> resolve(COMPANY_SQL, key));
+    }
+
+    public void invalidateCandidate(String userId, String candidateId) {
+        invalidate(candidates, userId, candidateId);
+    }
+
+    public void invalidateCompany(String userId, String companyId) {
+        invalidate(companies, userId, companyId);
+    }
+
+    public void invalidateAllCandidates() {
+        candidates.invalidateAll();
+    }
+
+    public void invalidateAllCompanies() {
+        companies.invalidateAll();
+    }
+
+    private CallerIdentity resolve(String sql, String userId) {
+        return jdbcClient.sql(sql)
+                .param("userId", userId)
+                .query((rs, rowNum) -> new CallerIdentity(rs.getObject(1).toString(), rs.getString(2)))
+                .optional().orElse(null);
+    }
+
+    // The owner may have changed on upsert, so drop the entity under any user as well
+    private static void invalidate(EntityCache<CallerIdentity> cache, String userId, String entityId) {
+        if (userId != null) cache.invalidate(userId);
+        if (entityId != null) {
+            String id = EntityCache.key(entityId);
+            cache.invalidateIf(identity -> id.equals(identity.id()));
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package com.portal.service;
 
+import com.portal.dto.BulkResult;
 import com.portal.dto.Candidate;
+import com.portal.dto.PageRequest;
 import com.portal.dto.PageResponse;
+import com.portal.util.BulkWriter;
+import com.portal.util.CountCache;
+import com.portal.util.EntityCache;
+import com.portal.util.PagedQuery;
+import com.portal.util.Projection;
+import com.portal.util.RowMappers;
 import com.portal.util.TableNames;
+import com.portal.util.WriteRetrier;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 
 import static com.portal.util.ValidationUtil.*;
 
@@ -14,149 +25,181 @@ import static com.portal.util.ValidationUtil.*;
 public class CandidateService {
 
     private final JdbcClient jdbcClient;
-    private final String table = TableNames.CANDIDATES;
-
-    public CandidateService(JdbcClient jdbcClient) {
+    private final CountCache countCache;
+    private final BulkWriter bulkWriter;
+    private final WriteRetrier writeRetrier;
+    private final CallerIdentityService callerIdentities;
+    private final EntityCache<Candidate> cache = new EntityCache<>(TableNames.CANDIDATES);
+
+    public CandidateService(JdbcClient jdbcClient, CountCache countCache, BulkWriter bulkWriter, WriteRetrier writeRetrier,
+                            CallerIdentityService callerIdentities) {
         this.jdbcClient = jdbcClient;
+        this.countCache = countCache;
+        this.bulkWriter = bulkWriter;
+        this.writeRetrier = writeRetrier;
+        this.callerIdentities = callerIdentities;
     }
 
-    private static final String SELECT_COLUMNS = """
-            CAST(id AS text) AS id, CAST(user_id AS text) AS user_id,
-            name, email, phone, photo_url, portfolio_url, github_url, linkedin_url,
-            current_company, current_title, CAST(working_since AS text) AS working_since,
-            license, patents, certifications, status, is_deleted,
-            CAST(deleted_at AS text) AS deleted_at,
-            CAST(created_at AS text) AS created_at,
-            CAST(updated_at AS text) AS updated_at
-            """;
+    private static final String SELECT_COLUMNS = RowMappers.CANDIDATE_COLUMNS;
+
+    private static final String FIND_BY_ID_SQL = "SELECT %s FROM %s WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
+            .formatted(SELECT_COLUMNS, TableNames.CANDIDATES);
+
+    private static final String FIND_BY_USER_ID_SQL = "SELECT %s FROM %s WHERE user_id = CAST(:userId AS uuid) AND is_deleted = FALSE"
+            .formatted(SELECT_COLUMNS, TableNames.CANDIDATES);
+
+    private static final String SOFT_DELETE_SQL = "UPDATE %s SET is_deleted = TRUE, deleted_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE RETURNING %s"
+            .formatted(TableNames.CANDIDATES, SELECT_COLUMNS);
+
+    private static final String DISABLE_SQL = "UPDATE %s SET status = 'DISABLED', updated_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE RETURNING %s"
+            .formatted(TableNames.CANDIDATES, SELECT_COLUMNS);
+
+    private static final String ENABLE_SQL = "UPDATE %s SET status = 'ACTIVE', updated_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE RETURNING %s"
+            .formatted(TableNames.CANDIDATES, SELECT_COLUMNS);
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO %s (id, user_id, name, email, phone, photo_url,
+                portfolio_url, github_url, linkedin_url,
+                current_company, current_title, working_since,
+                license, patents, certifications, status, created_at, updated_at)
+            VALUES (CAST(:id AS uuid), CAST(:userId AS uuid), :name, :email, :phone, :photoUrl,
+                :portfolioUrl, :githubUrl, :linkedinUrl,
+                :currentCompany, :currentTitle, CAST(:workingSince AS date),
+                :license, :patents, :certifications,
+                COALESCE(:status, 'ACTIVE'),
+                COALESCE(CAST(:createdAt AS timestamptz), now()), now())
+            ON CONFLICT (id)
+            DO UPDATE SET
+                name = EXCLUDED.name, email = EXCLUDED.email, phone = EXCLUDED.phone,
+                photo_url = EXCLUDED.photo_url, portfolio_url = EXCLUDED.portfolio_url,
+                github_url = EXCLUDED.github_url, linkedin_url = EXCLUDED.linkedin_url,
+                current_company = EXCLUDED.current_company, current_title = EXCLUDED.current_title,
+                working_since = EXCLUDED.working_since, license = EXCLUDED.license,
+                patents = EXCLUDED.patents, certifications = EXCLUDED.certifications,
+                status = EXCLUDED.status, updated_at = now()
+            """.formatted(TableNames.CANDIDATES);
+
+    private static final String COUNT_ACTIVE = CountCache.key(TableNames.CANDIDATES, "active");
+    private static final String COUNT_ALL = CountCache.key(TableNames.CANDIDATES, "all");
+
+    private static final String ACTIVE_FILTER = "is_deleted = FALSE";
+    private static final String ALL_FILTER = "TRUE";
+
+    private final PagedQuery<Candidate> activePage = candidatePage(ACTIVE_FILTER);
+    private final PagedQuery<Candidate> allPage = candidatePage(ALL_FILTER);
+
+    private PagedQuery<Candidate> candidatePage(String where) {
+        return new PagedQuery<>(SELECT_COLUMNS, TableNames.CANDIDATES, where, "created_at",
+                RowMappers.CANDIDATE, Candidate::createdAt, Candidate::id);
+    }
 
     public Candidate findById(String id) {
         validateUuid(id, "id");
-        String sql = "SELECT %s FROM %s WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
-                .formatted(SELECT_COLUMNS, table);
-        return jdbcClient.sql(sql)
-                .param("id", id)
-                .query(Candidate.class)
-                .optional().orElse(null);
+        return cache.get(id, key -> jdbcClient.sql(FIND_BY_ID_SQL)
+                .param("id", key)
+                .query(RowMappers.CANDIDATE)
+                .optional().orElse(null));
     }
 
     public Candidate findByUserId(String userId) {
         validateUuid(userId, "userId");
-        String sql = "SELECT %s FROM %s WHERE user_id = CAST(:userId AS uuid) AND is_deleted = FALSE"
-                .formatted(SELECT_COLUMNS, table);
-        return jdbcClient.sql(sql)
+        return jdbcClient.sql(FIND_BY_USER_ID_SQL)
                 .param("userId", userId)
-                .query(Candidate.class)
+                .query(RowMappers.CANDIDATE)
                 .optional().orElse(null);
     }
 
-    public PageResponse<Candidate> listCandidates(int page, int size) {
-        long total = countActive();
-        String sql = "SELECT %s FROM %s WHERE is_deleted = FALSE ORDER BY created_at DESC LIMIT :size OFFSET :offset"
-                .formatted(SELECT_COLUMNS, table);
-        List<Candidate> list = jdbcClient.sql(sql)
-                .param("size", size)
-                .param("offset", page * size)
-                .query(Candidate.class)
-                .list();
-        return PageResponse.of(list, page, size, total);
+    public PageResponse<Candidate> listCandidates(PageRequest pageRequest) {
+        return activePage.fetch(jdbcClient, pageRequest, Map.of(), countCache, COUNT_ACTIVE);
+    }
+
+    /** Lists candidates as {@code fields} asks: whole profiles for {@link Projection#FULL}, otherwise a projection. */
+    public PageResponse<?> listCandidates(PageRequest pageRequest, String fields) {
+        if (Projection.FULL.equals(fields)) return listCandidates(pageRequest);
+        Projection projection = RowMappers.CANDIDATE_FIELDS.select(fields);
+        return projection.page(TableNames.CANDIDATES, ACTIVE_FILTER).fetch(jdbcClient, pageRequest, Map.of(), countCache, COUNT_ACTIVE);
+    }
+
+    public PageResponse<Candidate> listAllIncludingDeleted(PageRequest pageRequest) {
+        return allPage.fetch(jdbcClient, pageRequest, Map.of(), countCache, COUNT_ALL);
     }
 
-    public PageResponse<Candidate> listAllIncludingDeleted(int page, int size) {
-        long total = countAll();
-        String sql = "SELECT %s FROM %s ORDER BY created_at DESC LIMIT :size OFFSET :offset"
-                .formatted(SELECT_COLUMNS, table);
-        List<Candidate> list = jdbcClient.sql(sql)
-                .param("size", size)
-                .param("offset", page * size)
-                .query(Candidate.class)
-                .list();
-        return PageResponse.of(list, page, size, total);
+    public PageResponse<?> listAllIncludingDeleted(PageRequest pageRequest, String fields) {
+        if (Projection.FULL.equals(fields)) return listAllIncludingDeleted(pageRequest);
+        Projection projection = RowMappers.CANDIDATE_FIELDS.select(fields);
+        return projection.page(TableNames.CANDIDATES, ALL_FILTER).fetch(jdbcClient, pageRequest, Map.of(), countCache, COUNT_ALL);
     }
 
     public void upsert(Candidate c) {
+        MapSqlParameterSource params = upsertParams(c);
+        writeRetrier.run(() -> jdbcClient.sql(UPSERT_SQL).paramSource(params).update());
+        invalidate(c.id(), c.userId());
+        countCache.invalidate(TableNames.CANDIDATES);
+    }
+
+    public BulkResult upsertAll(List<Candidate> rows) {
+        BulkResult result = bulkWriter.write(UPSERT_SQL, rows, Candidate::id, this::upsertParams);
+        cache.invalidateAll();
+        callerIdentities.invalidateAllCandidates();
+        countCache.invalidate(TableNames.CANDIDATES);
+        return result;
+    }
+
+    private MapSqlParameterSource upsertParams(Candidate c) {
         validateUuid(c.id(), "id");
         validateRequired(c.name(), "name");
         validateEmail(c.email());
-        String sql = """
-                INSERT INTO %s (id, user_id, name, email, phone, photo_url,
-                    portfolio_url, github_url, linkedin_url,
-                    current_company, current_title, working_since,
-                    license, patents, certifications, status, created_at, updated_at)
-                VALUES (CAST(:id AS uuid), CAST(:userId AS uuid), :name, :email, :phone, :photoUrl,
-                    :portfolioUrl, :githubUrl, :linkedinUrl,
-                    :currentCompany, :currentTitle, CAST(:workingSince AS date),
-                    :license, :patents, :certifications,
-                    COALESCE(:status, 'ACTIVE'),
-                    COALESCE(CAST(:createdAt AS timestamptz), now()), now())
-                ON CONFLICT (id)
-                DO UPDATE SET
-                    name = EXCLUDED.name, email = EXCLUDED.email, phone = EXCLUDED.phone,
-                    photo_url = EXCLUDED.photo_url, portfolio_url = EXCLUDED.portfolio_url,
-                    github_url = EXCLUDED.github_url, linkedin_url = EXCLUDED.linkedin_url,
-                    current_company = EXCLUDED.current_company, current_title = EXCLUDED.current_title,
-                    working_since = EXCLUDED.working_since, license = EXCLUDED.license,
-                    patents = EXCLUDED.patents, certifications = EXCLUDED.certifications,
-                    status = EXCLUDED.status, updated_at = now()
-                """.formatted(table);
-        jdbcClient.sql(sql)
-                .param("id", c.id())
-                .param("userId", blankToNull(c.userId()))
-                .param("name", c.name())
-                .param("email", c.email())
-                .param("phone", blankToNull(c.phone()))
-                .param("photoUrl", blankToNull(c.photoUrl()))
-                .param("portfolioUrl", blankToNull(c.portfolioUrl()))
-                .param("githubUrl", blankToNull(c.githubUrl()))
-                .param("linkedinUrl", blankToNull(c.linkedinUrl()))
-                .param("currentCompany", blankToNull(c.currentCompany()))
-                .param("currentTitle", blankToNull(c.currentTitle()))
-                .param("workingSince", blankToNull(c.workingSince()))
-                .param("license", blankToNull(c.license()))
-                .param("patents", blankToNull(c.patents()))
-                .param("certifications", blankToNull(c.certifications()))
-                .param("status", blankToNull(c.status()))
-                .param("createdAt", blankToNull(c.createdAt()))
-                .update();
+        return new MapSqlParameterSource()
+                .addValue("id", c.id())
+                .addValue("userId", blankToNull(c.userId()))
+                .addValue("name", c.name())
+                .addValue("email", c.email())
+                .addValue("phone", blankToNull(c.phone()))
+                .addValue("photoUrl", blankToNull(c.photoUrl()))
+                .addValue("portfolioUrl", blankToNull(c.portfolioUrl()))
+                .addValue("githubUrl", blankToNull(c.githubUrl()))
+                .addValue("linkedinUrl", blankToNull(c.linkedinUrl()))
+                .addValue("currentCompany", blankToNull(c.currentCompany()))
+                .addValue("currentTitle", blankToNull(c.currentTitle()))
+                .addValue("workingSince", blankToNull(c.workingSince()))
+                .addValue("license", blankToNull(c.license()))
+                .addValue("patents", blankToNull(c.patents()))
+                .addValue("certifications", blankToNull(c.certifications()))
+                .addValue("status", blankToNull(c.status()))
+                .addValue("createdAt", blankToNull(c.createdAt()));
     }
 
     public Candidate softDelete(String id) {
         validateUuid(id, "id");
-        Candidate existing = findById(id);
-        if (existing == null) return null;
-        String sql = "UPDATE %s SET is_deleted = TRUE, deleted_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
-                .formatted(table);
-        jdbcClient.sql(sql).param("id", id).update();
-        return existing;
+        Candidate updated = writeRetrier.execute(() -> jdbcClient.sql(SOFT_DELETE_SQL).param("id", id)
+                .query(RowMappers.CANDIDATE)
+                .optional().orElse(null));
+        if (updated == null) return null;
+        invalidate(id, updated.userId());
+        countCache.invalidate(TableNames.CANDIDATES);
+        return updated;
     }
 
     public Candidate disable(String id) {
         validateUuid(id, "id");
-        Candidate existing = findById(id);
-        if (existing == null) return null;
-        String sql = "UPDATE %s SET status = 'DISABLED', updated_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
-                .formatted(table);
-        jdbcClient.sql(sql).param("id", id).update();
-        return existing;
+        Candidate updated = writeRetrier.execute(() -> jdbcClient.sql(DISABLE_SQL).param("id", id)
+                .query(RowMappers.CANDIDATE)
+                .optional().orElse(null));
+        invalidate(id, updated == null ? null : updated.userId());
+        return updated;
     }
 
     public Candidate enable(String id) {
         validateUuid(id, "id");
-        Candidate existing = findById(id);
-        if (existing == null) return null;
-        String sql = "UPDATE %s SET status = 'ACTIVE', updated_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
-                .formatted(table);
-        jdbcClient.sql(sql).param("id", id).update();
-        return existing;
-    }
-
-    private long countActive() {
-        return jdbcClient.sql("SELECT COUNT(*) FROM %s WHERE is_deleted = FALSE".formatted(table))
-                .query(Long.class).single();
+        Candidate updated = writeRetrier.execute(() -> jdbcClient.sql(ENABLE_SQL).param("id", id)
+                .query(RowMappers.CANDIDATE)
+                .optional().orElse(null));
+        invalidate(id, updated == null ? null : updated.userId());
+        return updated;
     }
 
-    private long countAll() {
-        return jdbcClient.sql("SELECT COUNT(*) FROM %s".formatted(table))
-                .query(Long.class).single();
+    private void invalidate(String id, String userId) {
+        cache.invalidate(id);
+        callerIdentities.invalidateCandidate(userId, id);
     }
 }
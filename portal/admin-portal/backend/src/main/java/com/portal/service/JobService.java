@@ -1,13 +1,32 @@
 package com.portal.service;
 
+import com.portal.dto.BulkResult;
+import com.portal.dto.CascadeProgress;
 import com.portal.dto.Company;
 import com.portal.dto.Job;
+import com.portal.dto.PageRequest;
 import com.portal.dto.PageResponse;
+import com.portal.util.BulkWriter;
+import com.portal.util.CountCache;
+import com.portal.util.EntityCache;
+import com.portal.util.PagedQuery;
+import com.portal.util.Projection;
+import com.portal.util.RequestDeadline;
+import com.portal.util.RowMappers;
 import com.portal.util.TableNames;
+import com.portal.util.WriteRetrier;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static com.portal.util.ValidationUtil.*;
 
@@ -15,174 +34,288 @@ import static com.portal.util.ValidationUtil.*;
 public class JobService {
 
     private final JdbcClient jdbcClient;
-    private final String table = TableNames.JOBS;
-    private final String companiesTable = TableNames.COMPANIES;
+    private final CountCache countCache;
+    private final BulkWriter bulkWriter;
+    private final WriteRetrier writeRetrier;
+    private final EntityCache<Job> cache = new EntityCache<>(TableNames.JOBS);
 
-    public JobService(JdbcClient jdbcClient) {
+    private static final int CLOSE_CHUNK_SIZE = 1_000;
+    private static final long CLOSE_TIME_BUDGET_NANOS = TimeUnit.SECONDS.toNanos(20);
+    // Stop early when the request deadline would not leave room for another chunk
+    private static final long CLOSE_RESERVE_MILLIS = 5_000;
+    private static final String FIRST_ID = "00000000-0000-0000-0000-000000000000";
+
+    public JobService(JdbcClient jdbcClient, CountCache countCache, BulkWriter bulkWriter, WriteRetrier writeRetrier) {
         this.jdbcClient = jdbcClient;
+        this.countCache = countCache;
+        this.bulkWriter = bulkWriter;
+        this.writeRetrier = writeRetrier;
     }
 
-    private static final String SELECT_COLUMNS = """
-            CAST(id AS text) AS id, CAST(company_id AS text) AS company_id,
-            company_name, title, job_description,
-            required_professional_experience, required_educational_experience,
-            status, applicant_count, is_deleted,
-            CAST(deleted_at AS text) AS deleted_at,
-            CAST(created_at AS text) AS created_at,
-            CAST(updated_at AS text) AS updated_at
+    private static final String SELECT_COLUMNS = RowMappers.JOB_COLUMNS;
+
+    private static final String FIND_BY_ID_SQL = "SELECT %s FROM %s WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
+            .formatted(SELECT_COLUMNS, TableNames.JOBS);
+
+    private static final String UPDATE_SQL = """
+            UPDATE %s SET
+                title = :title, job_description = :jobDescription,
+                required_professional_experience = :reqProfExp,
+                required_educational_experience = :reqEduExp,
+                status = COALESCE(:status, status),
+                updated_at = now()
+            WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE
+            """.formatted(TableNames.JOBS);
+
+    private static final String SOFT_DELETE_SQL = "UPDATE %s SET is_deleted = TRUE, deleted_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE RETURNING %s"
+            .formatted(TableNames.JOBS, SELECT_COLUMNS);
+
+    // Closes at most :limit open jobs past the :after cursor, keeping each statement within DSQL's
+    // per-transaction row limit.
+    private static final String CLOSE_CHUNK_BY_COMPANY_SQL = """
+            UPDATE %1$s SET status = 'CLOSED', updated_at = now()
+            WHERE id IN (
+                SELECT id FROM %1$s
+                WHERE company_id = CAST(:companyId AS uuid) AND status = 'OPEN' AND is_deleted = FALSE
+                  AND id > CAST(:after AS uuid)
+                ORDER BY id LIMIT :limit)
+            RETURNING id
+            """.formatted(TableNames.JOBS);
+
+    private static final String COMPANY_STATUS_SQL = "SELECT status FROM %s WHERE id = CAST(:companyId AS uuid) AND is_deleted = FALSE"
+            .formatted(TableNames.COMPANIES);
+
+    private static final String FIND_COMPANIES_SQL = "SELECT %s FROM %s WHERE id IN (:ids) AND is_deleted = FALSE"
+            .formatted(RowMappers.COMPANY_COLUMNS, TableNames.COMPANIES);
+
+    private static final String ON_CONFLICT_UPDATE = """
+            ON CONFLICT (id)
+            DO UPDATE SET
+                title = EXCLUDED.title, job_description = EXCLUDED.job_description,
+                required_professional_experience = EXCLUDED.required_professional_experience,
+                required_educational_experience = EXCLUDED.required_educational_experience,
+                status = EXCLUDED.status, updated_at = now()
             """;
 
+    private static final String CREATE_SQL = """
+            INSERT INTO %s (id, company_id, company_name, title, job_description,
+                required_professional_experience, required_educational_experience,
+                status, applicant_count, created_at, updated_at)
+            VALUES (CAST(:id AS uuid), CAST(:companyId AS uuid), :companyName, :title, :jobDescription,
+                :reqProfExp, :reqEduExp,
+                COALESCE(:status, 'OPEN'), 0,
+                COALESCE(CAST(:createdAt AS timestamptz), now()), now())
+            %s""".formatted(TableNames.JOBS, ON_CONFLICT_UPDATE);
+
+    // Writes nothing unless the company exists, is active and is not deleted.
+    private static final String CREATE_FROM_COMPANY_SQL = """
+            INSERT INTO %s (id, company_id, company_name, title, job_description,
+                required_professional_experience, required_educational_experience,
+                status, applicant_count, created_at, updated_at)
+            SELECT CAST(:id AS uuid), c.id, c.name, :title, :jobDescription,
+                :reqProfExp, :reqEduExp,
+                COALESCE(:status, 'OPEN'), 0,
+                COALESCE(CAST(:createdAt AS timestamptz), now()), now()
+            FROM %s c
+            WHERE c.id = CAST(:companyId AS uuid) AND c.is_deleted = FALSE AND c.status = 'ACTIVE'
+            %sRETURNING %s
+            """.formatted(TableNames.JOBS, TableNames.COMPANIES, ON_CONFLICT_UPDATE, SELECT_COLUMNS);
+
+    private static final String COUNT_ALL = CountCache.key(TableNames.JOBS, "all");
+
+    // Indexed by filter combination: bit 0 = companyId, bit 1 = status
+    private static final List<String> LIST_FILTERS = List.of(
+            "is_deleted = FALSE",
+            "is_deleted = FALSE AND company_id = CAST(:companyId AS uuid)",
+            "is_deleted = FALSE AND status = :status",
+            "is_deleted = FALSE AND company_id = CAST(:companyId AS uuid) AND status = :status");
+    private static final String ALL_FILTER = "TRUE";
+
+    private final List<PagedQuery<Job>> listPages = LIST_FILTERS.stream().map(this::jobPage).toList();
+    private final PagedQuery<Job> allPage = jobPage(ALL_FILTER);
+
+    private PagedQuery<Job> jobPage(String where) {
+        return new PagedQuery<>(SELECT_COLUMNS, TableNames.JOBS, where, "created_at",
+                RowMappers.JOB, Job::createdAt, Job::id);
+    }
+
     public Job findById(String id) {
         validateUuid(id, "id");
-        String sql = "SELECT %s FROM %s WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
-                .formatted(SELECT_COLUMNS, table);
-        return jdbcClient.sql(sql)
-                .param("id", id)
-                .query(Job.class)
-                .optional().orElse(null);
+        return cache.get(id, key -> jdbcClient.sql(FIND_BY_ID_SQL)
+                .param("id", key)
+                .query(RowMappers.JOB)
+                .optional().orElse(null));
+    }
+
+    public PageResponse<Job> listJobs(PageRequest pageRequest, String companyId, String status) {
+        Map<String, Object> params = listParams(companyId, status);
+        return listPages.get(filterIndex(params)).fetch(jdbcClient, pageRequest, params);
+    }
+
+    /** Lists jobs as {@code fields} asks: whole jobs for {@link Projection#FULL}, otherwise a projection. */
+    public PageResponse<?> listJobs(PageRequest pageRequest, String companyId, String status, String fields) {
+        if (Projection.FULL.equals(fields)) return listJobs(pageRequest, companyId, status);
+        Projection projection = RowMappers.JOB_FIELDS.select(fields);
+        Map<String, Object> params = listParams(companyId, status);
+        return projection.page(TableNames.JOBS, LIST_FILTERS.get(filterIndex(params)))
+                .fetch(jdbcClient, pageRequest, params);
+    }
+
+    public PageResponse<Job> listAllIncludingDeleted(PageRequest pageRequest) {
+        return allPage.fetch(jdbcClient, pageRequest, Map.of(), countCache, COUNT_ALL);
+    }
+
+    public PageResponse<?> listAllIncludingDeleted(PageRequest pageRequest, String fields) {
+        if (Projection.FULL.equals(fields)) return listAllIncludingDeleted(pageRequest);
+        Projection projection = RowMappers.JOB_FIELDS.select(fields);
+        return projection.page(TableNames.JOBS, ALL_FILTER)
+                .fetch(jdbcClient, pageRequest, Map.of(), countCache, COUNT_ALL);
     }
 
-    public PageResponse<Job> listJobs(int page, int size, String companyId, String status) {
-        StringBuilder where = new StringBuilder("WHERE is_deleted = FALSE");
+    private static Map<String, Object> listParams(String companyId, String status) {
+        Map<String, Object> params = new HashMap<>();
         if (companyId != null && !companyId.isBlank()) {
             validateUuid(companyId, "companyId");
-            where.append(" AND company_id = CAST(:companyId AS uuid)");
+            params.put("companyId", companyId);
         }
         if (status != null && !status.isBlank()) {
-            where.append(" AND status = :status");
+            params.put("status", status);
         }
+        return params;
+    }
 
-        String countSql = "SELECT COUNT(*) FROM %s %s".formatted(table, where);
-        var countQuery = jdbcClient.sql(countSql);
-        if (companyId != null && !companyId.isBlank()) countQuery = countQuery.param("companyId", companyId);
-        if (status != null && !status.isBlank()) countQuery = countQuery.param("status", status);
-        long total = countQuery.query(Long.class).single();
-
-        String sql = "SELECT %s FROM %s %s ORDER BY created_at DESC LIMIT :size OFFSET :offset"
-                .formatted(SELECT_COLUMNS, table, where);
-        var query = jdbcClient.sql(sql);
-        if (companyId != null && !companyId.isBlank()) query = query.param("companyId", companyId);
-        if (status != null && !status.isBlank()) query = query.param("status", status);
-        List<Job> list = query
-                .param("size", size)
-                .param("offset", page * size)
-                .query(Job.class)
-                .list();
-        return PageResponse.of(list, page, size, total);
-    }
-
-    public PageResponse<Job> listAllIncludingDeleted(int page, int size) {
-        long total = jdbcClient.sql("SELECT COUNT(*) FROM %s".formatted(table)).query(Long.class).single();
-        String sql = "SELECT %s FROM %s ORDER BY created_at DESC LIMIT :size OFFSET :offset"
-                .formatted(SELECT_COLUMNS, table);
-        List<Job> list = jdbcClient.sql(sql)
-                .param("size", size)
-                .param("offset", page * size)
-                .query(Job.class)
-                .list();
-        return PageResponse.of(list, page, size, total);
+    private static int filterIndex(Map<String, Object> params) {
+        return (params.containsKey("companyId") ? 1 : 0) | (params.containsKey("status") ? 2 : 0);
     }
 
     public Job createJob(Job job) {
-        validateUuid(job.id(), "id");
-        validateUuid(job.companyId(), "companyId");
-        validateRequired(job.title(), "title");
+        MapSqlParameterSource params = jobParams(job);
+        Job created = writeRetrier.execute(() -> jdbcClient.sql(CREATE_FROM_COMPANY_SQL)
+                .paramSource(params)
+                .query(RowMappers.JOB)
+                .optional().orElse(null));
+        if (created == null) {
+            // Only on failure: read the company state to explain the rejection
+            String companyStatus = jdbcClient.sql(COMPANY_STATUS_SQL)
+                    .param("companyId", job.companyId())
+                    .query(String.class)
+                    .optional().orElse(null);
+            throw new IllegalArgumentException(companyStatus == null
+                    ? "Company not found or has been deleted"
+                    : "Company is not active. Cannot create job.");
+        }
+        cache.invalidate(created.id());
+        countCache.invalidate(TableNames.JOBS);
+        return created;
+    }
 
-        // Application-layer referential integrity: validate company exists, is active, not deleted
-        String companySql = """
-                SELECT CAST(id AS text) AS id, CAST(user_id AS text) AS user_id,
-                       name, logo_url, details, corporate_website,
-                       hr_contact_name, hr_contact_email, legal_contact_name, legal_contact_email,
-                       status, is_deleted, CAST(deleted_at AS text) AS deleted_at,
-                       CAST(created_at AS text) AS created_at, CAST(updated_at AS text) AS updated_at
-                FROM %s WHERE id = CAST(:companyId AS uuid) AND is_deleted = FALSE
-                """.formatted(companiesTable);
-        Company company = jdbcClient.sql(companySql)
-                .param("companyId", job.companyId())
-                .query(Company.class)
-                .optional().orElse(null);
+    public BulkResult createJobs(List<Job> jobs) {
+        Set<UUID> companyIds = new HashSet<>();
+        for (Job job : jobs) {
+            // Rows without a valid company id are rejected per row by createParams
+            if (job != null && isUuid(job.companyId())) {
+                companyIds.add(UUID.fromString(job.companyId()));
+            }
+        }
+        Map<String, Company> companies = new HashMap<>();
+        if (!companyIds.isEmpty()) {
+            jdbcClient.sql(FIND_COMPANIES_SQL)
+                    .param("ids", companyIds)
+                    .query(RowMappers.COMPANY)
+                    .list()
+                    .forEach(c -> companies.put(c.id(), c));
+        }
+
+        BulkResult result = bulkWriter.write(CREATE_SQL, jobs, Job::id,
+                job -> createParams(job, companies));
+        cache.invalidateAll();
+        countCache.invalidate(TableNames.JOBS);
+        return result;
+    }
 
+    private MapSqlParameterSource createParams(Job job, Map<String, Company> companies) {
+        MapSqlParameterSource params = jobParams(job);
+        // Company ids come back from the database in lower case
+        Company company = companies.get(UUID.fromString(job.companyId()).toString());
         if (company == null) {
             throw new IllegalArgumentException("Company not found or has been deleted");
         }
         if (!"ACTIVE".equals(company.status())) {
             throw new IllegalArgumentException("Company is not active. Cannot create job.");
         }
+        return params.addValue("companyName", company.name());
+    }
 
-        String sql = """
-                INSERT INTO %s (id, company_id, company_name, title, job_description,
-                    required_professional_experience, required_educational_experience,
-                    status, applicant_count, created_at, updated_at)
-                VALUES (CAST(:id AS uuid), CAST(:companyId AS uuid), :companyName, :title, :jobDescription,
-                    :reqProfExp, :reqEduExp,
-                    COALESCE(:status, 'OPEN'), 0,
-                    COALESCE(CAST(:createdAt AS timestamptz), now()), now())
-                ON CONFLICT (id)
-                DO UPDATE SET
-                    title = EXCLUDED.title, job_description = EXCLUDED.job_description,
-                    required_professional_experience = EXCLUDED.required_professional_experience,
-                    required_educational_experience = EXCLUDED.required_educational_experience,
-                    status = EXCLUDED.status, updated_at = now()
-                """.formatted(table);
-        jdbcClient.sql(sql)
-                .param("id", job.id())
-                .param("companyId", job.companyId())
-                .param("companyName", company.name())
-                .param("title", job.title())
-                .param("jobDescription", blankToNull(job.jobDescription()))
-                .param("reqProfExp", blankToNull(job.requiredProfessionalExperience()))
-                .param("reqEduExp", blankToNull(job.requiredEducationalExperience()))
-                .param("status", blankToNull(job.status()))
-                .param("createdAt", blankToNull(job.createdAt()))
-                .update();
-        return findById(job.id());
+    private MapSqlParameterSource jobParams(Job job) {
+        validateUuid(job.id(), "id");
+        validateUuid(job.companyId(), "companyId");
+        validateRequired(job.title(), "title");
+        return new MapSqlParameterSource()
+                .addValue("id", job.id())
+                .addValue("companyId", job.companyId())
+                .addValue("title", job.title())
+                .addValue("jobDescription", blankToNull(job.jobDescription()))
+                .addValue("reqProfExp", blankToNull(job.requiredProfessionalExperience()))
+                .addValue("reqEduExp", blankToNull(job.requiredEducationalExperience()))
+                .addValue("status", blankToNull(job.status()))
+                .addValue("createdAt", blankToNull(job.createdAt()));
     }
 
     public void updateJob(Job job) {
         validateUuid(job.id(), "id");
         validateRequired(job.title(), "title");
-        String sql = """
-                UPDATE %s SET
-                    title = :title, job_description = :jobDescription,
-                    required_professional_experience = :reqProfExp,
-                    required_educational_experience = :reqEduExp,
-                    status = COALESCE(:status, status),
-                    updated_at = now()
-                WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE
-                """.formatted(table);
-        jdbcClient.sql(sql)
+        writeRetrier.run(() -> jdbcClient.sql(UPDATE_SQL)
                 .param("id", job.id())
                 .param("title", job.title())
                 .param("jobDescription", blankToNull(job.jobDescription()))
                 .param("reqProfExp", blankToNull(job.requiredProfessionalExperience()))
                 .param("reqEduExp", blankToNull(job.requiredEducationalExperience()))
                 .param("status", blankToNull(job.status()))
-                .update();
+                .update());
+        cache.invalidate(job.id());
     }
 
     public Job softDelete(String id) {
         validateUuid(id, "id");
-        Job existing = findById(id);
-        if (existing == null) return null;
-        String sql = "UPDATE %s SET is_deleted = TRUE, deleted_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
-                .formatted(table);
-        jdbcClient.sql(sql).param("id", id).update();
-        return existing;
+        Job updated = writeRetrier.execute(() -> jdbcClient.sql(SOFT_DELETE_SQL).param("id", id)
+                .query(RowMappers.JOB)
+                .optional().orElse(null));
+        if (updated == null) return null;
+        cache.invalidate(id);
+        countCache.invalidate(TableNames.JOBS);
+        return updated;
     }
 
-    public void closeJobsByCompanyId(String companyId) {
+    /**
+     * Closes the company's open jobs in chunks of {@value #CLOSE_CHUNK_SIZE}, each committed on its
+     * own, until none are left or the time budget or request deadline is spent. Resume with the
+     * returned cursor.
+     */
+    public CascadeProgress closeJobsByCompanyId(String companyId, String cursor) {
         validateUuid(companyId, "companyId");
-        String sql = """
-                UPDATE %s SET status = 'CLOSED', updated_at = now()
-                WHERE company_id = CAST(:companyId AS uuid) AND status = 'OPEN' AND is_deleted = FALSE
-                """.formatted(table);
-        jdbcClient.sql(sql).param("companyId", companyId).update();
-    }
+        String after = (cursor == null || cursor.isBlank()) ? FIRST_ID : cursor;
+        validateUuid(after, "cursor");
 
-    public void incrementApplicantCount(String jobId) {
-        validateUuid(jobId, "jobId");
-        String sql = "UPDATE %s SET applicant_count = applicant_count + 1, updated_at = now() WHERE id = CAST(:id AS uuid)"
-                .formatted(table);
-        jdbcClient.sql(sql).param("id", jobId).update();
+        long deadline = System.nanoTime() + CLOSE_TIME_BUDGET_NANOS;
+        int closed = 0;
+        while (true) {
+            String from = after;
+            List<String> ids = writeRetrier.execute(() -> jdbcClient.sql(CLOSE_CHUNK_BY_COMPANY_SQL)
+                    .param("companyId", companyId)
+                    .param("after", from)
+                    .param("limit", CLOSE_CHUNK_SIZE)
+                    .query(String.class)
+                    .list());
+            ids.forEach(cache::invalidate);
+            closed += ids.size();
+            if (ids.size() < CLOSE_CHUNK_SIZE) {
+                return new CascadeProgress(closed, true, null);
+            }
+            // Canonical uuid text sorts like the uuid itself
+            after = Collections.max(ids);
+            if (System.nanoTime() - deadline >= 0 || RequestDeadline.remainingMillis() < CLOSE_RESERVE_MILLIS) {
+                return new CascadeProgress(closed, false, after);
+            }
+        }
     }
 }
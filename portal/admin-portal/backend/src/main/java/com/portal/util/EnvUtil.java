@@ -0,0 +1,26 @@
+package com.portal.util;
+
+/**
+ * Reads configuration from environment variables. A variable that is unset, blank or unparseable
+ * falls back to the default.
+ */
+public final class EnvUtil {
+    private EnvUtil() {}
+
+    public static String readEnv(String key, String defaultValue) {
+        String value = System.getenv(key);
+        return (value == null || value.isBlank()) ? defaultValue : value;
+    }
+
+    public static boolean readBooleanEnv(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(readEnv(key, Boolean.toString(defaultValue)).trim());
+    }
+
+    public static long readLongEnv(String key, long defaultValue) {
+        try {
+            return Long.parseLong(readEnv(key, Long.toString(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.portal.util;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects HikariCP pool metrics (acquire wait, active/idle, connection creation rate) and
+ * periodically logs a snapshot so the pool can be sized from CloudWatch logs.
+ */
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(PoolMetrics.class);
+
+    private final LogThrottle logThrottle;
+    private final long startedAtNanos = System.nanoTime();
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireWaitNanos = new LongAdder();
+    private final AtomicLong maxAcquireWaitNanos = new AtomicLong();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder createMillis = new LongAdder();
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+
+    private volatile PoolStats poolStats;
+
+    public PoolMetrics(long logIntervalSeconds) {
+        this.logThrottle = new LogThrottle(logIntervalSeconds);
+    }
+
+    public record Snapshot(
+            int active,
+            int idle,
+            int total,
+            int pending,
+            long acquired,
+            double avgAcquireWaitMillis,
+            double maxAcquireWaitMillis,
+            long created,
+            double avgCreateMillis,
+            double createdPerMinute,
+            double avgUsageMillis,
+            long timeouts
+    ) {}
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats stats) {
+        this.poolStats = stats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long millis) {
+                createdCount.increment();
+                createMillis.add(millis);
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long nanos) {
+                acquireCount.increment();
+                acquireWaitNanos.add(nanos);
+                maxAcquireWaitNanos.accumulateAndGet(nanos, Math::max);
+                if (logThrottle.tryAcquire()) {
+                    log.info("Connection pool: {}", snapshot());
+                }
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long millis) {
+                usageMillis.add(millis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeoutCount.increment();
+                log.warn("Connection acquire timed out: {}", snapshot());
+            }
+        };
+    }
+
+    public Snapshot snapshot() {
+        PoolStats stats = poolStats;
+        long acquired = acquireCount.sum();
+        long created = createdCount.sum();
+        double uptimeMinutes = Math.max((System.nanoTime() - startedAtNanos) / 60_000_000_000d, 1d / 60);
+        return new Snapshot(
+                stats == null ? 0 : stats.getActiveConnections(),
+                stats == null ? 0 : stats.getIdleConnections(),
+                stats == null ? 0 : stats.getTotalConnections(),
+                stats == null ? 0 : stats.getPendingThreads(),
+                acquired,
+                acquired == 0 ? 0 : acquireWaitNanos.sum() / 1_000_000d / acquired,
+                maxAcquireWaitNanos.get() / 1_000_000d,
+                created,
+                created == 0 ? 0 : (double) createMillis.sum() / created,
+                created / uptimeMinutes,
+                acquired == 0 ? 0 : (double) usageMillis.sum() / acquired,
+                timeoutCount.sum());
+    }
+}
@@ -0,0 +1,149 @@
+package com.portal.util;
+
+import com.portal.dto.ProjectedRow;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * A subset of an entity's fields for list responses. Only the chosen columns are selected and
+ * serialized, and long text columns are cut to a snippet in SQL so the full value never leaves the
+ * database. Every row also reads its id and timestamps, which key the page cursor and the row
+ * version; the version includes the projection's variant so differently shaped pages never share
+ * an ETag. The paged query for each filter is built once and kept on the projection.
+ */
+public final class Projection {
+
+    /** {@code fields} value asking for whole entities rather than a projection. */
+    public static final String FULL = "full";
+    private static final String SUMMARY = "summary";
+
+    private static final String KEY_COLUMNS = "id, created_at, updated_at, deleted_at";
+    private static final int FIRST_FIELD_COLUMN = 5;
+
+    @FunctionalInterface
+    public interface ColumnReader {
+        Object read(ResultSet rs, int column) throws SQLException;
+    }
+
+    /**
+     * @param versioned the value can change without {@code updated_at} moving, so it is part of
+     *                  the row version whenever the field is selected
+     */
+    public record Field(String name, String column, ColumnReader reader, boolean versioned) {
+
+        public Field(String name, String column, ColumnReader reader) {
+            this(name, column, reader, false);
+        }
+    }
+
+    private final String variant;
+    private final String selectColumns;
+    private final RowMapper<ProjectedRow> rowMapper;
+    private final Map<String, PagedQuery<ProjectedRow>> pages = new ConcurrentHashMap<>();
+
+    private Projection(String variant, List<Field> fields) {
+        this.variant = variant;
+        this.selectColumns = KEY_COLUMNS + ", " + fields.stream().map(Field::column).collect(Collectors.joining(", "));
+        this.rowMapper = (rs, rowNum) -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                Field field = fields.get(i);
+                values.put(field.name(), field.reader().read(rs, FIRST_FIELD_COLUMN + i));
+            }
+            String id = RowMappers.uuid(rs, 1);
+            StringBuilder version = new StringBuilder(variant).append('|').append(id)
+                    .append('|').append(RowMappers.timestamp(rs, 3)).append('|').append(RowMappers.timestamp(rs, 4));
+            for (Field field : fields) {
+                if (field.versioned()) version.append('|').append(values.get(field.name()));
+            }
+            return new ProjectedRow(id, RowMappers.timestamp(rs, 2), version.toString(), values);
+        };
+    }
+
+    /** SQL expression for the first {@code length} characters of a text column, marked when cut. */
+    public static String snippet(String column, int length) {
+        return "CASE WHEN length(%1$s) > %2$d THEN left(%1$s, %2$d) || '...' ELSE %1$s END"
+                .formatted(column, length);
+    }
+
+    public String variant() {
+        return variant;
+    }
+
+    public String selectColumns() {
+        return selectColumns;
+    }
+
+    public RowMapper<ProjectedRow> rowMapper() {
+        return rowMapper;
+    }
+
+    /** The newest-first page query over {@code table} rows matching {@code where}. */
+    public PagedQuery<ProjectedRow> page(String table, String where) {
+        return pages.computeIfAbsent(table + "|" + where, key -> new PagedQuery<>(selectColumns, table, where,
+                "created_at", rowMapper, ProjectedRow::createdAt, ProjectedRow::id));
+    }
+
+    /** The fields an entity exposes to projections, in response order, and its default summary. */
+    public static final class Catalog {
+
+        // Ad hoc selections beyond this many are built per request instead of cached
+        private static final int MAX_CACHED = 64;
+
+        private final String entity;
+        private final Map<String, Field> fields = new LinkedHashMap<>();
+        private final Projection summary;
+        private final Map<String, Projection> selections = new ConcurrentHashMap<>();
+
+        public Catalog(String entity, List<Field> fields, Set<String> summaryFields) {
+            this.entity = entity;
+            fields.forEach(field -> this.fields.put(field.name(), field));
+            this.summary = new Projection(entity + ":" + SUMMARY,
+                    fields.stream().filter(field -> summaryFields.contains(field.name())).toList());
+        }
+
+        public Projection summary() {
+            return summary;
+        }
+
+        /**
+         * Resolves a comma-separated {@code fields} value. Blank or {@code summary} gives the
+         * summary; unknown names are rejected. Fields come back in catalog order whatever order
+         * they were asked in.
+         */
+        public Projection select(String fieldsParam) {
+            if (fieldsParam == null || fieldsParam.isBlank() || SUMMARY.equals(fieldsParam.strip())) {
+                return summary;
+            }
+            Set<String> requested = new HashSet<>();
+            for (String name : fieldsParam.split(",")) {
+                String trimmed = name.strip();
+                if (trimmed.isEmpty()) continue;
+                if (!fields.containsKey(trimmed)) {
+                    throw new IllegalArgumentException("Unknown field '" + trimmed + "' for " + entity);
+                }
+                requested.add(trimmed);
+            }
+            if (requested.isEmpty()) return summary;
+
+            List<Field> chosen = fields.values().stream().filter(field -> requested.contains(field.name())).toList();
+            String key = chosen.stream().map(Field::name).collect(Collectors.joining(","));
+            Projection cached = selections.get(key);
+            if (cached != null) return cached;
+            Projection projection = new Projection(entity + ":" + key, chosen);
+            if (selections.size() < MAX_CACHED) {
+                selections.putIfAbsent(key, projection);
+            }
+            return projection;
+        }
+    }
+}
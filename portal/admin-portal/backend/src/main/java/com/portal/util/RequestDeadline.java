@@ -0,0 +1,45 @@
+package com.portal.util;
+
+import java.time.Duration;
+
+/**
+ * Deadline of the request being served on this thread, taken from the Lambda context's remaining
+ * time. The router opens it around each request; JDBC statements, S3 calls and write retries size
+ * their timeouts from what is left, so slow work fails fast instead of running into the function
+ * timeout. Without an open deadline (local runs, startup) nothing is limited.
+ */
+public final class RequestDeadline {
+
+    private RequestDeadline() {}
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    public static void start(long budgetMillis) {
+        DEADLINE_NANOS.set(System.nanoTime() + Duration.ofMillis(budgetMillis).toNanos());
+    }
+
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    /** Milliseconds left, or {@link Long#MAX_VALUE} when no deadline is open. */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) return Long.MAX_VALUE;
+        return Duration.ofNanos(deadline - System.nanoTime()).toMillis();
+    }
+
+    /** Throws unless at least {@code minimumMillis} are left. */
+    public static void ensure(long minimumMillis) {
+        long remaining = remainingMillis();
+        if (remaining < minimumMillis) {
+            throw new DeadlineExceededException(remaining);
+        }
+    }
+
+    /** Timeout for one outbound call: what is left, capped at {@code max}. */
+    public static Duration callTimeout(Duration max) {
+        ensure(1);
+        return Duration.ofMillis(Math.min(max.toMillis(), remainingMillis()));
+    }
+}
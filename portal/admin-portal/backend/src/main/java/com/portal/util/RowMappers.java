@@ -0,0 +1,217 @@
+package com.portal.util;
+
+import com.portal.dto.Candidate;
+import com.portal.dto.Company;
+import com.portal.dto.Job;
+import com.portal.dto.JobApplication;
+import com.portal.dto.User;
+import com.portal.util.Projection.Field;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Positional row mappers for the entity tables. Each mapper reads the columns of its matching
+ * {@code *_COLUMNS} list in order, so the two must change together. uuid, date and timestamptz
+ * columns are read natively and rendered the way Postgres prints them in a UTC session, which
+ * keeps the JSON identical to the former {@code CAST(... AS text)} output. The {@code *_FIELDS}
+ * catalogs describe the same columns for list projections.
+ */
+public final class RowMappers {
+
+    private RowMappers() {}
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = new DateTimeFormatterBuilder()
+            .appendPattern("uuuu-MM-dd HH:mm:ss")
+            .appendFraction(ChronoField.MICRO_OF_SECOND, 0, 6, true)
+            .appendOffset("+HH:mm", "+00")
+            .toFormatter();
+
+    // Longest text a projection returns for a free-text column before cutting it
+    private static final int SNIPPET_LENGTH = 200;
+
+    // Folded count plus applications still pending in the counter shards, so reads are exact
+    // whether or not a fold has run. Valid wherever the jobs table is in scope unaliased.
+    // Runs once per returned row, as a range read on the shards primary key (job_id, shard):
+    // at most ApplicantCountService.SHARDS rows per job, none once a fold has cleared them,
+    // so a page of 20 jobs reads at most 320 shard rows.
+    private static final String APPLICANT_COUNT = """
+            applicant_count + COALESCE((SELECT SUM(s.delta) FROM %2$s s WHERE s.job_id = %1$s.id), 0)"""
+            .formatted(TableNames.JOBS, TableNames.JOB_APPLICANT_COUNT_SHARDS);
+
+    public static final String JOB_COLUMNS = """
+            id, company_id, company_name, title, job_description,
+            required_professional_experience, required_educational_experience,
+            status, %s, is_deleted, deleted_at, created_at, updated_at
+            """.formatted(APPLICANT_COUNT);
+
+    public static final RowMapper<Job> JOB = (rs, rowNum) -> new Job(
+            uuid(rs, 1),
+            uuid(rs, 2),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getString(6),
+            rs.getString(7),
+            rs.getString(8),
+            rs.getInt(9),
+            rs.getBoolean(10),
+            timestamp(rs, 11),
+            timestamp(rs, 12),
+            timestamp(rs, 13));
+
+    public static final Projection.Catalog JOB_FIELDS = new Projection.Catalog("job", List.of(
+            new Field("id", "id", RowMappers::uuid),
+            new Field("companyId", "company_id", RowMappers::uuid),
+            new Field("companyName", "company_name", ResultSet::getString),
+            new Field("title", "title", ResultSet::getString),
+            new Field("jobDescription", Projection.snippet("job_description", SNIPPET_LENGTH), ResultSet::getString),
+            new Field("requiredProfessionalExperience",
+                    Projection.snippet("required_professional_experience", SNIPPET_LENGTH), ResultSet::getString),
+            new Field("requiredEducationalExperience",
+                    Projection.snippet("required_educational_experience", SNIPPET_LENGTH), ResultSet::getString),
+            new Field("status", "status", ResultSet::getString),
+            new Field("applicantCount", APPLICANT_COUNT, ResultSet::getInt, true),
+            new Field("isDeleted", "is_deleted", ResultSet::getBoolean),
+            new Field("deletedAt", "deleted_at", RowMappers::timestamp),
+            new Field("createdAt", "created_at", RowMappers::timestamp),
+            new Field("updatedAt", "updated_at", RowMappers::timestamp)),
+            Set.of("id", "companyId", "companyName", "title", "jobDescription", "status", "applicantCount",
+                    "isDeleted", "deletedAt", "createdAt", "updatedAt"));
+
+    public static final String CANDIDATE_COLUMNS = """
+            id, user_id, name, email, phone, photo_url, portfolio_url, github_url, linkedin_url,
+            current_company, current_title, working_since, license, patents, certifications,
+            status, is_deleted, deleted_at, created_at, updated_at
+            """;
+
+    public static final RowMapper<Candidate> CANDIDATE = (rs, rowNum) -> new Candidate(
+            uuid(rs, 1),
+            uuid(rs, 2),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getString(6),
+            rs.getString(7),
+            rs.getString(8),
+            rs.getString(9),
+            rs.getString(10),
+            rs.getString(11),
+            date(rs, 12),
+            rs.getString(13),
+            rs.getString(14),
+            rs.getString(15),
+            rs.getString(16),
+            rs.getBoolean(17),
+            timestamp(rs, 18),
+            timestamp(rs, 19),
+            timestamp(rs, 20));
+
+    public static final Projection.Catalog CANDIDATE_FIELDS = new Projection.Catalog("candidate", List.of(
+            new Field("id", "id", RowMappers::uuid),
+            new Field("userId", "user_id", RowMappers::uuid),
+            new Field("name", "name", ResultSet::getString),
+            new Field("email", "email", ResultSet::getString),
+            new Field("phone", "phone", ResultSet::getString),
+            new Field("photoUrl", "photo_url", ResultSet::getString),
+            new Field("portfolioUrl", "portfolio_url", ResultSet::getString),
+            new Field("githubUrl", "github_url", ResultSet::getString),
+            new Field("linkedinUrl", "linkedin_url", ResultSet::getString),
+            new Field("currentCompany", "current_company", ResultSet::getString),
+            new Field("currentTitle", "current_title", ResultSet::getString),
+            new Field("workingSince", "working_since", RowMappers::date),
+            new Field("license", Projection.snippet("license", SNIPPET_LENGTH), ResultSet::getString),
+            new Field("patents", Projection.snippet("patents", SNIPPET_LENGTH), ResultSet::getString),
+            new Field("certifications", Projection.snippet("certifications", SNIPPET_LENGTH), ResultSet::getString),
+            new Field("status", "status", ResultSet::getString),
+            new Field("isDeleted", "is_deleted", ResultSet::getBoolean),
+            new Field("deletedAt", "deleted_at", RowMappers::timestamp),
+            new Field("createdAt", "created_at", RowMappers::timestamp),
+            new Field("updatedAt", "updated_at", RowMappers::timestamp)),
+            Set.of("id", "userId", "name", "email", "photoUrl", "currentCompany", "currentTitle", "status",
+                    "isDeleted", "deletedAt", "createdAt", "updatedAt"));
+
+    public static final String COMPANY_COLUMNS = """
+            id, user_id, name, logo_url, details, corporate_website,
+            hr_contact_name, hr_contact_email, legal_contact_name, legal_contact_email,
+            status, is_deleted, deleted_at, created_at, updated_at
+            """;
+
+    public static final RowMapper<Company> COMPANY = (rs, rowNum) -> new Company(
+            uuid(rs, 1),
+            uuid(rs, 2),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getString(6),
+            rs.getString(7),
+            rs.getString(8),
+            rs.getString(9),
+            rs.getString(10),
+            rs.getString(11),
+            rs.getBoolean(12),
+            timestamp(rs, 13),
+            timestamp(rs, 14),
+            timestamp(rs, 15));
+
+    public static final String JOB_APPLICATION_COLUMNS = """
+            id, job_id, candidate_id, candidate_name, job_title, status,
+            applied_at, is_deleted, deleted_at
+            """;
+
+    public static final RowMapper<JobApplication> JOB_APPLICATION = (rs, rowNum) -> new JobApplication(
+            uuid(rs, 1),
+            uuid(rs, 2),
+            uuid(rs, 3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getString(6),
+            timestamp(rs, 7),
+            rs.getBoolean(8),
+            timestamp(rs, 9));
+
+    public static final String USER_COLUMNS = """
+            id, username, password_hash, role, linked_entity_id,
+            status, is_deleted, deleted_at, created_at
+            """;
+
+    public static final RowMapper<User> USER = (rs, rowNum) -> new User(
+            uuid(rs, 1),
+            rs.getString(2),
+            rs.getString(3),
+            rs.getString(4),
+            uuid(rs, 5),
+            rs.getString(6),
+            rs.getBoolean(7),
+            timestamp(rs, 8),
+            timestamp(rs, 9));
+
+    static String uuid(ResultSet rs, int column) throws SQLException {
+        UUID value = rs.getObject(column, UUID.class);
+        return value == null ? null : value.toString();
+    }
+
+    static String timestamp(ResultSet rs, int column) throws SQLException {
+        OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+        return value == null ? null : TIMESTAMP_FORMAT.format(value);
+    }
+
+    /** Parses a timestamp in the form {@link #timestamp} renders; throws {@link java.time.format.DateTimeParseException}. */
+    static OffsetDateTime parseTimestamp(String value) {
+        return OffsetDateTime.parse(value, TIMESTAMP_FORMAT);
+    }
+
+    static String date(ResultSet rs, int column) throws SQLException {
+        LocalDate value = rs.getObject(column, LocalDate.class);
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,58 @@
+package com.portal.util;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fails startup when an index that a service query depends on is missing or has not finished
+ * building, so list latency does not silently depend on how the cluster was set up. With SnapStart
+ * the check runs when a version is published, which makes a half-built schema a failed deploy.
+ */
+public class SchemaIndexCheck {
+
+    /** Index (or unique constraint) names by the access path they serve. */
+    static final List<String> REQUIRED = List.of(
+            "idx_jobs_company_status_created",              // jobs by company / status, newest first
+            "idx_jobs_status_created",
+            "idx_jobs_active_created",
+            "idx_job_applications_job_applied",             // applications of a job
+            "idx_job_applications_candidate_applied",       // applications of a candidate
+            "job_applications_job_id_candidate_id_key",     // apply: ON CONFLICT (job_id, candidate_id)
+            "idx_candidates_user_id",                       // caller lookups by Cognito sub
+            "idx_companies_user_id",
+            "users_username_key",                           // login lookups
+            "idx_candidates_active_created",
+            "idx_companies_active_created",
+            "idx_users_active_created");
+
+    private static final String VALID_INDEXES_SQL = """
+            SELECT c.relname
+            FROM pg_class c JOIN pg_index i ON i.indexrelid = c.oid
+            WHERE c.relname IN (:names) AND i.indisvalid
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public SchemaIndexCheck(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void verify() {
+        Set<String> present = new HashSet<>(jdbcTemplate.queryForList(
+                VALID_INDEXES_SQL, Map.of("names", REQUIRED), String.class));
+        List<String> missing = new ArrayList<>();
+        for (String name : REQUIRED) {
+            if (!present.contains(name)) missing.add(name);
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Required indexes missing or still building: " + missing
+                    + ". Run the db/migration scripts (--migrate) and wait for the index builds,"
+                    + " or set DB_VERIFY_INDEXES=false to start anyway.");
+        }
+    }
+}
@@ -8,4 +8,6 @@ public final class TableNames {
     public static final String COMPANIES = "companies";
     public static final String JOBS = "jobs";
     public static final String JOB_APPLICATIONS = "job_applications";
+    public static final String JOB_APPLICANT_COUNT_SHARDS = "job_applicant_count_shards";
+    public static final String SCHEMA_MIGRATIONS = "schema_migrations";
 }
@@ -0,0 +1,143 @@
+package com.portal.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Retries writes that DSQL rejects with an optimistic concurrency conflict (SQLSTATE 40001).
+ * A retried unit is always a whole statement or transaction that did not commit, and service
+ * writes are keyed by client-supplied ids or guarded by ON CONFLICT / WHERE clauses, so a replay
+ * cannot apply a change twice. Backoff is exponential with full jitter. A container-wide budget
+ * caps retries to a fraction of successful writes, so a conflict storm fails fast rather than
+ * multiplying load.
+ */
+public class WriteRetrier {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteRetrier.class);
+
+    private static final String SERIALIZATION_FAILURE = "40001";
+    private static final long TOKEN = 1_000;
+    private static final long REFILL_PER_SUCCESS = TOKEN / 10;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long budgetCapacity;
+    private final AtomicLong budget;
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder budgetRejections = new LongAdder();
+
+    public WriteRetrier(TransactionTemplate transactionTemplate, int maxAttempts,
+                        long baseBackoffMillis, long maxBackoffMillis, long budgetTokens) {
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.budgetCapacity = budgetTokens * TOKEN;
+        this.budget = new AtomicLong(budgetCapacity);
+    }
+
+    public record Snapshot(long writes, long conflicts, long retries, long exhausted,
+                           long budgetRejections, double budgetTokens) {}
+
+    public <T> T inTransaction(TransactionCallback<T> callback) {
+        return execute(() -> transactionTemplate.execute(callback));
+    }
+
+    public void run(Runnable write) {
+        execute(() -> {
+            write.run();
+            return null;
+        });
+    }
+
+    public <T> T execute(Supplier<T> write) {
+        // Inside a transaction the conflict aborts the whole unit; the outermost caller retries it.
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return write.get();
+        }
+        writes.increment();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = write.get();
+                if (attempt == 1) {
+                    refill();
+                }
+                return result;
+            } catch (RuntimeException e) {
+                if (!isConflict(e)) throw e;
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("Write conflict persisted after {} attempts: {}", attempt, snapshot());
+                    throw new WriteConflictException("Write conflict, please retry", e);
+                }
+                if (!withdraw()) {
+                    budgetRejections.increment();
+                    log.warn("Write conflict not retried, retry budget exhausted: {}", snapshot());
+                    throw new WriteConflictException("Write conflict, please retry", e);
+                }
+                retries.increment();
+                sleep(attempt, e);
+            }
+        }
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(writes.sum(), conflicts.sum(), retries.sum(), exhausted.sum(),
+                budgetRejections.sum(), budget.get() / (double) TOKEN);
+    }
+
+    static boolean isConflict(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && SERIALIZATION_FAILURE.equals(sql.getSQLState())) {
+                return true;
+            }
+            if (t.getCause() == t) break;
+        }
+        return false;
+    }
+
+    private void refill() {
+        budget.accumulateAndGet(REFILL_PER_SUCCESS, (current, add) -> Math.min(budgetCapacity, current + add));
+    }
+
+    private boolean withdraw() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < TOKEN) return false;
+        } while (!budget.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+
+    private void sleep(int attempt, RuntimeException conflict) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        if (RequestDeadline.remainingMillis() - delay < 1_000) {
+            // Not enough time left for the retry to run after the backoff
+            throw new WriteConflictException("Write conflict, please retry", conflict);
+        }
+        log.debug("Write conflict on attempt {}, retrying in {} ms", attempt, delay);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WriteConflictException("Write conflict, please retry", conflict);
+        }
+    }
+}
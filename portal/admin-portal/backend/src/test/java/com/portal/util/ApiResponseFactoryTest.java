@@ -0,0 +1,92 @@
+package com.portal.util;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import com.portal.dto.Job;
+import com.portal.dto.PageResponse;
+import com.portal.dto.ProjectedRow;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ApiResponseFactoryTest {
+
+    private static final String JOB_ID = "7d3c9c2e-0b1a-4f7e-9a43-5f2b8e6a1c10";
+    private static final String UPDATED_AT = "2026-10-01 09:30:00+00";
+
+    private final ApiResponseFactory responseFactory = new ApiResponseFactory(new ResponseCompressor());
+
+    @Test
+    void jobEtagChangesWhenSomeoneApplies() {
+        String etag = responseFactory.ok(job(3), null).getHeaders().get("etag");
+
+        assertThat(responseFactory.ok(job(3), etag).getStatusCode()).isEqualTo(304);
+        assertThat(responseFactory.ok(job(4), etag).getStatusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void jobPageEtagChangesWhenSomeoneApplies() {
+        String etag = responseFactory.ok(page(job(3)), null).getHeaders().get("etag");
+
+        assertThat(responseFactory.ok(page(job(3)), etag).getStatusCode()).isEqualTo(304);
+        assertThat(responseFactory.ok(page(job(4)), etag).getStatusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void projectedJobEtagChangesWhenSomeoneApplies() throws SQLException {
+        Projection summary = RowMappers.JOB_FIELDS.summary();
+        String etag = responseFactory.ok(page(projectedRow(summary, 3)), null).getHeaders().get("etag");
+
+        assertThat(responseFactory.ok(page(projectedRow(summary, 3)), etag).getStatusCode()).isEqualTo(304);
+        assertThat(responseFactory.ok(page(projectedRow(summary, 4)), etag).getStatusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void projectionWithoutApplicantCountKeepsItsEtag() throws SQLException {
+        Projection titles = RowMappers.JOB_FIELDS.select("title");
+        String etag = responseFactory.ok(page(projectedRow(titles, 3)), null).getHeaders().get("etag");
+
+        APIGatewayV2HTTPResponse response = responseFactory.ok(page(projectedRow(titles, 4)), etag);
+        assertThat(response.getStatusCode()).isEqualTo(304);
+    }
+
+    @Test
+    void notModifiedEchoesTheGzipTag() {
+        String etag = responseFactory.ok(job(3), null).getHeaders().get("etag");
+        String gzipEtag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+
+        APIGatewayV2HTTPResponse response = responseFactory.ok(job(3), "\"other\", " + gzipEtag);
+        assertThat(response.getStatusCode()).isEqualTo(304);
+        assertThat(response.getHeaders()).containsEntry("etag", gzipEtag).containsEntry("vary", "accept-encoding");
+    }
+
+    private static Job job(int applicantCount) {
+        return new Job(JOB_ID, UUID.randomUUID().toString(), "Acme", "Engineer", "Builds things",
+                null, null, "OPEN", applicantCount, false, null, "2026-09-01 08:00:00+00", UPDATED_AT);
+    }
+
+    private static <T> PageResponse<T> page(T item) {
+        return PageResponse.of(List.of(item), 0, 20, null, true, false, null);
+    }
+
+    // Every column reads the same fixed values except the applicant count
+    private static ProjectedRow projectedRow(Projection projection, int applicantCount) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        OffsetDateTime timestamp = OffsetDateTime.of(2026, 10, 1, 9, 30, 0, 0, ZoneOffset.UTC);
+        when(rs.getObject(anyInt(), eq(UUID.class))).thenReturn(UUID.fromString(JOB_ID));
+        when(rs.getObject(anyInt(), eq(OffsetDateTime.class))).thenReturn(timestamp);
+        when(rs.getString(anyInt())).thenReturn("text");
+        when(rs.getInt(anyInt())).thenReturn(applicantCount);
+        return projection.rowMapper().mapRow(rs, 0);
+    }
+}
@@ -1,2 +1,6 @@
 call mvn package -P lambda-layer
+set DSQL_ENDPOINT=xztsdc4rle4zv5v3rb3hwyoebe.dsql.us-east-1.on.aws
+set DSQL_DATABASE=postgres
+set DSQL_DB_USER=app_user
+java -cp "target\classes;target\layer\java\lib\*" com.portal.Application --migrate || exit /b 1
 call sam deploy --stack-name enduser-portal-stack --capabilities CAPABILITY_NAMED_IAM  --s3-bucket jobs-portal-enduser-iac-tsaino --parameter-overrides   CognitoUserPoolId=us-east-1_k78DebcwM   CognitoUserPoolClientId=697is3b35es7t337n52vg5cu3p  DsqlEndpoint=xztsdc4rle4zv5v3rb3hwyoebe.dsql.us-east-1.on.aws    DsqlDatabase=postgres DsqlDbUser=app_user
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.portal.dto;
+
+/**
+ * Outcome of a caller-scoped lookup: the value when the caller may see it, otherwise whether it
+ * was missing or belongs to someone else.
+ */
+public record AccessResult<T>(
+        Verdict verdict,
+        T value
+) {
+    public enum Verdict { OK, NOT_FOUND, FORBIDDEN }
+
+    public static <T> AccessResult<T> ok(T value) {
+        return new AccessResult<>(Verdict.OK, value);
+    }
+
+    public static <T> AccessResult<T> notFound() {
+        return new AccessResult<>(Verdict.NOT_FOUND, null);
+    }
+
+    public static <T> AccessResult<T> forbidden() {
+        return new AccessResult<>(Verdict.FORBIDDEN, null);
+    }
+}
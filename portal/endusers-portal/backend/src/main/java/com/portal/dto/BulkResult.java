@@ -0,0 +1,25 @@
+package com.portal.dto;
+
+import java.util.List;
+
+public record BulkResult(
+        int total,
+        int succeeded,
+        int failed,
+        List<Row> results
+) {
+    public static final String STATUS_OK = "OK";
+    public static final String STATUS_FAILED = "FAILED";
+
+    public record Row(
+            int index,
+            String id,
+            String status,
+            String message
+    ) {}
+
+    public static BulkResult of(List<Row> results) {
+        int succeeded = (int) results.stream().filter(r -> STATUS_OK.equals(r.status())).count();
+        return new BulkResult(results.size(), succeeded, results.size() - succeeded, results);
+    }
+}
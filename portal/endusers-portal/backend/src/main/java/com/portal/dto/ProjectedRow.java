@@ -0,0 +1,18 @@
+package com.portal.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Map;
+
+/**
+ * A list row narrowed to the requested fields. Only {@code fields} is serialized; {@code id} and
+ * {@code createdAt} key the page cursor and {@code version} tags the row for ETags.
+ */
+public record ProjectedRow(String id, String createdAt, String version, Map<String, Object> fields) {
+
+    @JsonValue
+    @Override
+    public Map<String, Object> fields() {
+        return fields;
+    }
+}
@@ -1,25 +1,35 @@
 package com.portal.handler;
 
+import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
 import com.portal.util.ApiGatewayRequestParser;
 import com.portal.util.ApiResponseFactory;
+import com.portal.util.DeadlineExceededException;
+import com.portal.util.RequestContext;
+import com.portal.util.RequestDeadline;
+import com.portal.util.ResponseCompressor;
+import com.portal.util.WriteConflictException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+
+import static com.portal.util.EnvUtil.readLongEnv;
 
 @Component
 public class ApiRouterHandler {
 
     private static final Logger log = LoggerFactory.getLogger(ApiRouterHandler.class);
 
-    private final UserCrudApiHandler userHandler;
-    private final CandidateCrudApiHandler candidateHandler;
-    private final CompanyCrudApiHandler companyHandler;
-    private final JobCrudApiHandler jobHandler;
-    private final JobApplicationCrudApiHandler applicationHandler;
+    private static final long RESPONSE_RESERVE_MILLIS = 500;
+    private static final long MIN_BUDGET_MILLIS = 1_000;
+
+    private final RouteTable routes;
     private final ApiGatewayRequestParser requestParser;
     private final ApiResponseFactory responseFactory;
+    private final ResponseCompressor responseCompressor;
 
     public ApiRouterHandler(
             UserCrudApiHandler userHandler,
@@ -28,37 +38,65 @@ public class ApiRouterHandler {
             JobCrudApiHandler jobHandler,
             JobApplicationCrudApiHandler applicationHandler,
             ApiGatewayRequestParser requestParser,
-            ApiResponseFactory responseFactory) {
-        this.userHandler = userHandler;
-        this.candidateHandler = candidateHandler;
-        this.companyHandler = companyHandler;
-        this.jobHandler = jobHandler;
-        this.applicationHandler = applicationHandler;
+            ApiResponseFactory responseFactory,
+            ResponseCompressor responseCompressor) {
+        RouteTable.Builder builder = RouteTable.builder();
+        userHandler.registerRoutes(builder);
+        candidateHandler.registerRoutes(builder);
+        companyHandler.registerRoutes(builder);
+        jobHandler.registerRoutes(builder);
+        applicationHandler.registerRoutes(builder);
+        this.routes = builder.build(readLongEnv("ROUTE_STATS_LOG_INTERVAL_SECS", 60));
         this.requestParser = requestParser;
         this.responseFactory = responseFactory;
+        this.responseCompressor = responseCompressor;
     }
 
-    public APIGatewayV2HTTPResponse handle(APIGatewayV2HTTPEvent event) {
+    /**
+     * Routes one request under a deadline of the Lambda's remaining time less a reserve for writing
+     * the response. {@code context} is null outside Lambda, in which case nothing is limited.
+     */
+    public APIGatewayV2HTTPResponse handle(APIGatewayV2HTTPEvent event, Context context) {
         String path = requestParser.readPath(event);
         String method = requestParser.readMethod(event);
 
-        try {
-            if (userHandler.canHandle(method, path)) {
-                return userHandler.handle(event);
-            }
-            if (candidateHandler.canHandle(method, path)) {
-                return candidateHandler.handle(event);
-            }
-            if (companyHandler.canHandle(method, path)) {
-                return companyHandler.handle(event);
-            }
-            if (jobHandler.canHandle(method, path)) {
-                return jobHandler.handle(event);
-            }
-            if (applicationHandler.canHandle(method, path)) {
-                return applicationHandler.handle(event);
+        if (context != null) {
+            long budget = context.getRemainingTimeInMillis() - RESPONSE_RESERVE_MILLIS;
+            if (budget < MIN_BUDGET_MILLIS) {
+                log.warn("Rejecting {} {}: only {} ms left on the invocation", method, path, budget);
+                return responseFactory.serviceUnavailable("Request deadline exceeded");
             }
+            RequestDeadline.start(budget);
+        }
+        RouteTable.Match match = routes.resolve(method, path);
+        responseCompressor.begin(requestParser.readAcceptEncoding(event), match == null ? "" : match.route().key());
+        try {
+            return dispatch(event, match, method, path);
+        } finally {
+            responseCompressor.end();
+            RequestDeadline.clear();
+        }
+    }
+
+    private APIGatewayV2HTTPResponse dispatch(APIGatewayV2HTTPEvent event, RouteTable.Match match,
+                                              String method, String path) {
+        if (match == null) {
             return responseFactory.notFound("Route not found: " + method + " " + path);
+        }
+        try {
+            RequestContext request;
+            try {
+                request = requestParser.readContext(event, method, path, match.route().key(), match.pathParameters());
+            } catch (IllegalArgumentException e) {
+                return responseFactory.badRequest("Invalid request body encoding");
+            }
+            return match.route().invoke(request);
+        } catch (WriteConflictException e) {
+            log.warn("Write conflict for {} {}: {}", method, path, e.getCause().getMessage());
+            return responseFactory.serviceUnavailable(e.getMessage());
+        } catch (DeadlineExceededException | QueryTimeoutException | ApiCallTimeoutException e) {
+            log.warn("Deadline exceeded for {} {}: {}", method, path, e.getMessage());
+            return responseFactory.serviceUnavailable("Request deadline exceeded");
         } catch (Exception e) {
             log.error("Unhandled exception for {} {}", method, path, e);
             return responseFactory.serverError("Internal server error");
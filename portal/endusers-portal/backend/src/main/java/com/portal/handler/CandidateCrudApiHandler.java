@@ -1,6 +1,5 @@
 package com.portal.handler;
 
-import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.portal.dto.Candidate;
@@ -8,12 +7,14 @@ import com.portal.service.CandidateService;
 import com.portal.service.PhotoPresignService;
 import com.portal.util.ApiGatewayRequestParser;
 import com.portal.util.ApiResponseFactory;
+import com.portal.util.DeadlineExceededException;
+import com.portal.util.RequestContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
 
 import java.util.Map;
-import java.util.Set;
 
 @Component
 public class CandidateCrudApiHandler {
@@ -29,10 +30,6 @@ public class CandidateCrudApiHandler {
     private static final String ROUTE_GET_PHOTO_UPLOAD = "GET /api/candidate/photo/upload-url";
     private static final String ROUTE_GET_PHOTO_DOWNLOAD = "GET /api/candidate/photo/download-url";
 
-    private static final Set<String> HANDLED_ROUTES = Set.of(
-            ROUTE_PUT_CANDIDATE, ROUTE_GET_CANDIDATE,
-            ROUTE_GET_PHOTO_UPLOAD, ROUTE_GET_PHOTO_DOWNLOAD);
-
     private final CandidateService candidateService;
     private final PhotoPresignService photoPresignService;
     private final ApiResponseFactory responseFactory;
@@ -46,42 +43,21 @@ public class CandidateCrudApiHandler {
         this.requestParser = requestParser;
     }
 
-    public boolean canHandle(String method, String path) {
-        return HANDLED_ROUTES.contains(routeKey(method, path));
+    void registerRoutes(RouteTable.Builder routes) {
+        routes.add(ROUTE_PUT_CANDIDATE, request -> ROLE_CANDIDATE.equals(request.role())
+                ? handlePut(request) : responseFactory.forbidden(MSG_CANDIDATE_REQUIRED));
+        routes.add(ROUTE_GET_CANDIDATE, this::handleGet);
+        routes.add(ROUTE_GET_PHOTO_UPLOAD, request -> ROLE_CANDIDATE.equals(request.role())
+                ? handlePhotoUploadUrl(request) : responseFactory.forbidden(MSG_CANDIDATE_REQUIRED));
+        routes.add(ROUTE_GET_PHOTO_DOWNLOAD, request -> ROLE_CANDIDATE.equals(request.role())
+                ? handlePhotoDownloadUrl(request) : responseFactory.forbidden(MSG_CANDIDATE_REQUIRED));
     }
 
-    public APIGatewayV2HTTPResponse handle(APIGatewayV2HTTPEvent event) {
-        String path = requestParser.readPath(event);
-        String method = requestParser.readMethod(event);
-        String role = requestParser.readUserRole(event);
-
-        return switch (routeKey(method, path)) {
-            case ROUTE_PUT_CANDIDATE -> {
-                if (!ROLE_CANDIDATE.equals(role))
-                    yield responseFactory.forbidden(MSG_CANDIDATE_REQUIRED);
-                yield handlePut(event);
-            }
-            case ROUTE_GET_CANDIDATE -> handleGet(event);
-            case ROUTE_GET_PHOTO_UPLOAD -> {
-                if (!ROLE_CANDIDATE.equals(role))
-                    yield responseFactory.forbidden(MSG_CANDIDATE_REQUIRED);
-                yield handlePhotoUploadUrl(event);
-            }
-            case ROUTE_GET_PHOTO_DOWNLOAD -> {
-                if (!ROLE_CANDIDATE.equals(role))
-                    yield responseFactory.forbidden(MSG_CANDIDATE_REQUIRED);
-                yield handlePhotoDownloadUrl(event);
-            }
-            default -> responseFactory.notFound("Route not found");
-        };
-    }
-
-    private APIGatewayV2HTTPResponse handlePut(APIGatewayV2HTTPEvent event) {
-        String body = requestParser.readBody(event);
-        if (body == null || body.isBlank()) return responseFactory.badRequest("Body is required");
+    private APIGatewayV2HTTPResponse handlePut(RequestContext request) {
+        if (!request.hasBody()) return responseFactory.badRequest("Body is required");
         try {
-            Candidate candidate = ApiResponseFactory.objectMapper().readValue(body, Candidate.class);
-            String callerSub = requestParser.readUserId(event);
+            Candidate candidate = requestParser.readJsonBody(request, Candidate.class);
+            String callerSub = request.sub();
             if (callerSub == null || callerSub.isBlank())
                 return responseFactory.forbidden(MSG_UNABLE_TO_IDENTIFY);
             if (candidate.userId() == null || !callerSub.equals(candidate.userId()))
@@ -95,13 +71,13 @@ public class CandidateCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handleGet(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
-        String userId = requestParser.readQueryParam(event, "userId");
+    private APIGatewayV2HTTPResponse handleGet(RequestContext request) {
+        String id = request.queryParam("id");
+        String userId = request.queryParam("userId");
         if ((id == null || id.isBlank()) && (userId == null || userId.isBlank()))
             return responseFactory.badRequest("Query parameter 'id' or 'userId' is required");
-        String role = requestParser.readUserRole(event);
-        String callerSub = requestParser.readUserId(event);
+        String role = request.role();
+        String callerSub = request.sub();
         try {
             Candidate candidate;
             if (userId != null && !userId.isBlank()) {
@@ -114,7 +90,7 @@ public class CandidateCrudApiHandler {
                     return responseFactory.forbidden(MSG_OWN_PROFILE_ONLY);
             }
             if (candidate == null) return responseFactory.notFound("Candidate not found");
-            return responseFactory.ok(candidate);
+            return responseFactory.ok(candidate, request.ifNoneMatch());
         } catch (IllegalArgumentException e) {
             return responseFactory.badRequest(e.getMessage());
         }
@@ -128,23 +104,25 @@ public class CandidateCrudApiHandler {
         return !ROLE_CANDIDATE.equals(role) || (callerSub != null && callerSub.equals(ownerSub));
     }
 
-    private APIGatewayV2HTTPResponse handlePhotoUploadUrl(APIGatewayV2HTTPEvent event) {
-        String callerSub = requestParser.readUserId(event);
+    private APIGatewayV2HTTPResponse handlePhotoUploadUrl(RequestContext request) {
+        String callerSub = request.sub();
         if (callerSub == null || callerSub.isBlank())
             return responseFactory.forbidden(MSG_UNABLE_TO_IDENTIFY);
-        String contentType = requestParser.readQueryParam(event, "contentType");
+        String contentType = request.queryParam("contentType");
         if (contentType == null || contentType.isBlank()) contentType = "image/jpeg";
         try {
             String uploadUrl = photoPresignService.generateUploadUrl(callerSub, contentType);
             return responseFactory.ok(Map.of("uploadUrl", uploadUrl, "key", "candidates/" + callerSub + "/photo"));
+        } catch (DeadlineExceededException | ApiCallTimeoutException e) {
+            throw e; // answered with 503 by ApiRouterHandler
         } catch (Exception e) {
             log.error("Failed to generate photo upload URL for user '{}'", callerSub, e);
             return responseFactory.serverError("Failed to generate upload URL");
         }
     }
 
-    private APIGatewayV2HTTPResponse handlePhotoDownloadUrl(APIGatewayV2HTTPEvent event) {
-        String callerSub = requestParser.readUserId(event);
+    private APIGatewayV2HTTPResponse handlePhotoDownloadUrl(RequestContext request) {
+        String callerSub = request.sub();
         if (callerSub == null || callerSub.isBlank())
             return responseFactory.forbidden(MSG_UNABLE_TO_IDENTIFY);
         try {
@@ -152,15 +130,11 @@ public class CandidateCrudApiHandler {
                 return responseFactory.notFound("No photo uploaded");
             String downloadUrl = photoPresignService.generateDownloadUrl(callerSub);
             return responseFactory.ok(Map.of("downloadUrl", downloadUrl));
+        } catch (DeadlineExceededException | ApiCallTimeoutException e) {
+            throw e; // answered with 503 by ApiRouterHandler
         } catch (Exception e) {
             log.error("Failed to generate photo download URL for user '{}'", callerSub, e);
             return responseFactory.serverError("Failed to generate download URL");
         }
     }
-
-    private static String routeKey(String method, String path) {
-        String safeMethod = method == null ? "" : method.toUpperCase();
-        String safePath = path == null ? "" : path;
-        return safeMethod + " " + safePath;
-    }
 }
@@ -1,6 +1,5 @@
 package com.portal.handler;
 
-import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.portal.dto.Company;
@@ -8,12 +7,14 @@ import com.portal.service.CompanyService;
 import com.portal.service.PhotoPresignService;
 import com.portal.util.ApiGatewayRequestParser;
 import com.portal.util.ApiResponseFactory;
+import com.portal.util.DeadlineExceededException;
+import com.portal.util.RequestContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
 
 import java.util.Map;
-import java.util.Set;
 
 @Component
 public class CompanyCrudApiHandler {
@@ -28,10 +29,6 @@ public class CompanyCrudApiHandler {
     private static final String ROUTE_GET_LOGO_UPLOAD = "GET /api/company/logo/upload-url";
     private static final String ROUTE_GET_LOGO_DOWNLOAD = "GET /api/company/logo/download-url";
 
-    private static final Set<String> HANDLED_ROUTES = Set.of(
-            ROUTE_PUT_COMPANY, ROUTE_GET_COMPANY,
-            ROUTE_GET_LOGO_UPLOAD, ROUTE_GET_LOGO_DOWNLOAD);
-
     private final CompanyService companyService;
     private final PhotoPresignService photoPresignService;
     private final ApiResponseFactory responseFactory;
@@ -45,42 +42,21 @@ public class CompanyCrudApiHandler {
         this.requestParser = requestParser;
     }
 
-    public boolean canHandle(String method, String path) {
-        return HANDLED_ROUTES.contains(routeKey(method, path));
+    void registerRoutes(RouteTable.Builder routes) {
+        routes.add(ROUTE_PUT_COMPANY, request -> ROLE_COMPANY.equals(request.role())
+                ? handlePut(request) : responseFactory.forbidden(MSG_COMPANY_REQUIRED));
+        routes.add(ROUTE_GET_COMPANY, this::handleGet);
+        routes.add(ROUTE_GET_LOGO_UPLOAD, request -> ROLE_COMPANY.equals(request.role())
+                ? handleLogoUploadUrl(request) : responseFactory.forbidden(MSG_COMPANY_REQUIRED));
+        routes.add(ROUTE_GET_LOGO_DOWNLOAD, request -> ROLE_COMPANY.equals(request.role())
+                ? handleLogoDownloadUrl(request) : responseFactory.forbidden(MSG_COMPANY_REQUIRED));
     }
 
-    public APIGatewayV2HTTPResponse handle(APIGatewayV2HTTPEvent event) {
-        String path = requestParser.readPath(event);
-        String method = requestParser.readMethod(event);
-        String role = requestParser.readUserRole(event);
-
-        return switch (routeKey(method, path)) {
-            case ROUTE_PUT_COMPANY -> {
-                if (!ROLE_COMPANY.equals(role))
-                    yield responseFactory.forbidden(MSG_COMPANY_REQUIRED);
-                yield handlePut(event);
-            }
-            case ROUTE_GET_COMPANY -> handleGet(event);
-            case ROUTE_GET_LOGO_UPLOAD -> {
-                if (!ROLE_COMPANY.equals(role))
-                    yield responseFactory.forbidden(MSG_COMPANY_REQUIRED);
-                yield handleLogoUploadUrl(event);
-            }
-            case ROUTE_GET_LOGO_DOWNLOAD -> {
-                if (!ROLE_COMPANY.equals(role))
-                    yield responseFactory.forbidden(MSG_COMPANY_REQUIRED);
-                yield handleLogoDownloadUrl(event);
-            }
-            default -> responseFactory.notFound("Route not found");
-        };
-    }
-
-    private APIGatewayV2HTTPResponse handlePut(APIGatewayV2HTTPEvent event) {
-        String body = requestParser.readBody(event);
-        if (body == null || body.isBlank()) return responseFactory.badRequest("Body is required");
+    private APIGatewayV2HTTPResponse handlePut(RequestContext request) {
+        if (!request.hasBody()) return responseFactory.badRequest("Body is required");
         try {
-            Company company = ApiResponseFactory.objectMapper().readValue(body, Company.class);
-            String callerSub = requestParser.readUserId(event);
+            Company company = requestParser.readJsonBody(request, Company.class);
+            String callerSub = request.sub();
             if (callerSub == null || callerSub.isBlank())
                 return responseFactory.forbidden(MSG_UNABLE_TO_IDENTIFY);
             if (company.userId() == null || !callerSub.equals(company.userId()))
@@ -94,9 +70,9 @@ public class CompanyCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handleGet(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
-        String userId = requestParser.readQueryParam(event, "userId");
+    private APIGatewayV2HTTPResponse handleGet(RequestContext request) {
+        String id = request.queryParam("id");
+        String userId = request.queryParam("userId");
         if ((id == null || id.isBlank()) && (userId == null || userId.isBlank()))
             return responseFactory.badRequest("Query parameter 'id' or 'userId' is required");
         try {
@@ -105,7 +81,7 @@ public class CompanyCrudApiHandler {
                 company = companyService.findById(id);
             } else {
                 // userId lookup: caller may only look up their own company profile this way
-                String callerSub = requestParser.readUserId(event);
+                String callerSub = request.sub();
                 if (callerSub == null || !callerSub.equals(userId))
                     return responseFactory.forbidden("You can only access your own company profile this way");
                 company = companyService.findByUserId(userId);
@@ -117,23 +93,25 @@ public class CompanyCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handleLogoUploadUrl(APIGatewayV2HTTPEvent event) {
-        String callerSub = requestParser.readUserId(event);
+    private APIGatewayV2HTTPResponse handleLogoUploadUrl(RequestContext request) {
+        String callerSub = request.sub();
         if (callerSub == null || callerSub.isBlank())
             return responseFactory.forbidden(MSG_UNABLE_TO_IDENTIFY);
-        String contentType = requestParser.readQueryParam(event, "contentType");
+        String contentType = request.queryParam("contentType");
         if (contentType == null || contentType.isBlank()) contentType = "image/jpeg";
         try {
             String uploadUrl = photoPresignService.generateLogoUploadUrl(callerSub, contentType);
             return responseFactory.ok(Map.of("uploadUrl", uploadUrl, "key", "companies/" + callerSub + "/logo"));
+        } catch (DeadlineExceededException | ApiCallTimeoutException e) {
+            throw e; // answered with 503 by ApiRouterHandler
         } catch (Exception e) {
             log.error("Failed to generate logo upload URL for user '{}'", callerSub, e);
             return responseFactory.serverError("Failed to generate upload URL");
         }
     }
 
-    private APIGatewayV2HTTPResponse handleLogoDownloadUrl(APIGatewayV2HTTPEvent event) {
-        String callerSub = requestParser.readUserId(event);
+    private APIGatewayV2HTTPResponse handleLogoDownloadUrl(RequestContext request) {
+        String callerSub = request.sub();
         if (callerSub == null || callerSub.isBlank())
             return responseFactory.forbidden(MSG_UNABLE_TO_IDENTIFY);
         try {
@@ -141,15 +119,11 @@ public class CompanyCrudApiHandler {
                 return responseFactory.notFound("No logo uploaded");
             String downloadUrl = photoPresignService.generateLogoDownloadUrl(callerSub);
             return responseFactory.ok(Map.of("downloadUrl", downloadUrl));
+        } catch (DeadlineExceededException | ApiCallTimeoutException e) {
+            throw e; // answered with 503 by ApiRouterHandler
         } catch (Exception e) {
             log.error("Failed to generate logo download URL for user '{}'", callerSub, e);
             return responseFactory.serverError("Failed to generate download URL");
         }
     }
-
-    private static String routeKey(String method, String path) {
-        String safeMethod = method == null ? "" : method.toUpperCase();
-        String safePath = path == null ? "" : path;
-        return safeMethod + " " + safePath;
-    }
 }
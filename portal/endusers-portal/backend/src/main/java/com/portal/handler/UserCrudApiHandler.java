@@ -1,16 +1,15 @@
 package com.portal.handler;
 
-import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.portal.dto.User;
 import com.portal.service.UserService;
 import com.portal.util.ApiGatewayRequestParser;
 import com.portal.util.ApiResponseFactory;
+import com.portal.util.RequestContext;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
-import java.util.Set;
 
 @Component
 public class UserCrudApiHandler {
@@ -18,8 +17,6 @@ public class UserCrudApiHandler {
     private static final String ROUTE_PUT_USER = "PUT /api/user";
     private static final String ROUTE_GET_USER = "GET /api/user";
 
-    private static final Set<String> HANDLED_ROUTES = Set.of(ROUTE_PUT_USER, ROUTE_GET_USER);
-
     private final UserService userService;
     private final ApiResponseFactory responseFactory;
     private final ApiGatewayRequestParser requestParser;
@@ -30,27 +27,16 @@ public class UserCrudApiHandler {
         this.requestParser = requestParser;
     }
 
-    public boolean canHandle(String method, String path) {
-        return HANDLED_ROUTES.contains(routeKey(method, path));
-    }
-
-    public APIGatewayV2HTTPResponse handle(APIGatewayV2HTTPEvent event) {
-        String path = requestParser.readPath(event);
-        String method = requestParser.readMethod(event);
-
-        return switch (routeKey(method, path)) {
-            case ROUTE_PUT_USER -> handlePut(event);
-            case ROUTE_GET_USER -> handleGet(event);
-            default -> responseFactory.notFound("Route not found");
-        };
+    void registerRoutes(RouteTable.Builder routes) {
+        routes.add(ROUTE_PUT_USER, this::handlePut);
+        routes.add(ROUTE_GET_USER, this::handleGet);
     }
 
-    private APIGatewayV2HTTPResponse handlePut(APIGatewayV2HTTPEvent event) {
-        String body = requestParser.readBody(event);
-        if (body == null || body.isBlank()) return responseFactory.badRequest("Body is required");
+    private APIGatewayV2HTTPResponse handlePut(RequestContext request) {
+        if (!request.hasBody()) return responseFactory.badRequest("Body is required");
         try {
-            User user = ApiResponseFactory.objectMapper().readValue(body, User.class);
-            String callerSub = requestParser.readUserId(event);
+            User user = requestParser.readJsonBody(request, User.class);
+            String callerSub = request.sub();
             if (callerSub == null || callerSub.isBlank())
                 return responseFactory.forbidden("Unable to identify caller");
             if (user.id() == null || !callerSub.equals(user.id()))
@@ -71,10 +57,10 @@ public class UserCrudApiHandler {
         }
     }
 
-    private APIGatewayV2HTTPResponse handleGet(APIGatewayV2HTTPEvent event) {
-        String id = requestParser.readQueryParam(event, "id");
+    private APIGatewayV2HTTPResponse handleGet(RequestContext request) {
+        String id = request.queryParam("id");
         if (id == null || id.isBlank()) return responseFactory.badRequest("Query parameter 'id' is required");
-        String callerSub = requestParser.readUserId(event);
+        String callerSub = request.sub();
         if (callerSub == null || !id.equals(callerSub))
             return responseFactory.forbidden("You can only access your own user record");
         try {
@@ -85,10 +71,4 @@ public class UserCrudApiHandler {
             return responseFactory.badRequest(e.getMessage());
         }
     }
-
-    private static String routeKey(String method, String path) {
-        String safeMethod = method == null ? "" : method.toUpperCase();
-        String safePath = path == null ? "" : path;
-        return safeMethod + " " + safePath;
-    }
 }
@@ -0,0 +1,146 @@
+package com.portal.service;
+
+import com.portal.dto.Job;
+import com.portal.util.RowMappers;
+import com.portal.util.TableNames;
+import com.portal.util.WriteRetrier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.portal.util.ValidationUtil.*;
+
+/**
+ * Sharded applicant counter. The count is a job's applications that are not soft-deleted: each
+ * application adds one to one of {@link #SHARDS} rows for its job, each soft delete subtracts one,
+ * so concurrent applicants rarely touch the same row. Reads add the pending shard deltas to
+ * {@code jobs.applicant_count} (see {@link RowMappers#JOB_COLUMNS}), so the count is exact right
+ * after every application. Folding the shards into the column on roughly one in
+ * {@link #FOLD_ONE_IN} applications only keeps that sum short. Reconciliation recounts from
+ * {@code job_applications} and repairs any drift.
+ */
+@Service
+public class ApplicantCountService {
+
+    private static final Logger log = LoggerFactory.getLogger(ApplicantCountService.class);
+
+    private static final int SHARDS = 16;
+    private static final int FOLD_ONE_IN = 16;
+
+    private static final String INCREMENT_SQL = """
+            INSERT INTO %1$s (job_id, shard, delta)
+            VALUES (CAST(:jobId AS uuid), :shard, :delta)
+            ON CONFLICT (job_id, shard) DO UPDATE SET delta = %1$s.delta + :delta
+            """.formatted(TableNames.JOB_APPLICANT_COUNT_SHARDS);
+
+    private static final String PENDING_SQL = "SELECT COALESCE(SUM(delta), 0) FROM %s WHERE job_id = CAST(:jobId AS uuid)"
+            .formatted(TableNames.JOB_APPLICANT_COUNT_SHARDS);
+
+    private static final String CLEAR_SHARDS_SQL = "DELETE FROM %s WHERE job_id = CAST(:jobId AS uuid)"
+            .formatted(TableNames.JOB_APPLICANT_COUNT_SHARDS);
+
+    private static final String ADD_TO_JOB_SQL = """
+            UPDATE %s SET applicant_count = applicant_count + :delta, updated_at = now()
+            WHERE id = CAST(:jobId AS uuid)
+            """.formatted(TableNames.JOBS);
+
+    private static final String RECOUNT_SQL = """
+            UPDATE %s SET applicant_count = (
+                SELECT COUNT(*) FROM %s a WHERE a.job_id = CAST(:jobId AS uuid) AND a.is_deleted = FALSE
+            ), updated_at = now()
+            WHERE id = CAST(:jobId AS uuid)
+            RETURNING %s
+            """.formatted(TableNames.JOBS, TableNames.JOB_APPLICATIONS, RowMappers.JOB_COLUMNS);
+
+    private static final String JOB_IDS_AFTER_SQL = """
+            SELECT id FROM %s WHERE id > CAST(:after AS uuid) ORDER BY id LIMIT :limit
+            """.formatted(TableNames.JOBS);
+
+    private static final String FIRST_JOB_IDS_SQL = "SELECT id FROM %s ORDER BY id LIMIT :limit"
+            .formatted(TableNames.JOBS);
+
+    private final JdbcClient jdbcClient;
+    private final WriteRetrier writeRetrier;
+
+    public ApplicantCountService(JdbcClient jdbcClient, WriteRetrier writeRetrier) {
+        this.jdbcClient = jdbcClient;
+        this.writeRetrier = writeRetrier;
+    }
+
+    public record ReconcileResult(int reconciled, String nextAfter) {}
+
+    /** Adds one applicant; joins the caller's transaction when there is one. */
+    public void increment(String jobId) {
+        add(jobId, 1);
+    }
+
+    /** Removes one applicant after a soft delete; joins the caller's transaction when there is one. */
+    public void decrement(String jobId) {
+        add(jobId, -1);
+    }
+
+    private void add(String jobId, int delta) {
+        validateUuid(jobId, "jobId");
+        int shard = ThreadLocalRandom.current().nextInt(SHARDS);
+        writeRetrier.run(() -> jdbcClient.sql(INCREMENT_SQL)
+                .param("jobId", jobId)
+                .param("shard", shard)
+                .param("delta", delta)
+                .update());
+    }
+
+    /** Folds now and then; a failed fold is left for the next one or for reconciliation. */
+    public void maybeFold(String jobId) {
+        if (ThreadLocalRandom.current().nextInt(FOLD_ONE_IN) != 0) return;
+        try {
+            fold(jobId);
+        } catch (RuntimeException e) {
+            log.warn("Applicant count fold failed for job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    public void fold(String jobId) {
+        validateUuid(jobId, "jobId");
+        writeRetrier.inTransaction(status -> {
+            long pending = jdbcClient.sql(PENDING_SQL).param("jobId", jobId).query(Long.class).single();
+            if (pending == 0) return null;
+            jdbcClient.sql(CLEAR_SHARDS_SQL).param("jobId", jobId).update();
+            jdbcClient.sql(ADD_TO_JOB_SQL).param("jobId", jobId).param("delta", pending).update();
+            return null;
+        });
+    }
+
+    /** Recounts one job from its applications and drops its pending shards. */
+    public Job reconcile(String jobId) {
+        validateUuid(jobId, "jobId");
+        return writeRetrier.inTransaction(status -> {
+            jdbcClient.sql(CLEAR_SHARDS_SQL).param("jobId", jobId).update();
+            return jdbcClient.sql(RECOUNT_SQL)
+                    .param("jobId", jobId)
+                    .query(RowMappers.JOB)
+                    .optional().orElse(null);
+        });
+    }
+
+    /** Reconciles up to {@code limit} jobs in id order after {@code after}; resume with {@code nextAfter}. */
+    public ReconcileResult reconcileAll(String after, int limit) {
+        if (limit < 1 || limit > 500) {
+            throw new IllegalArgumentException("Field 'limit' must be between 1 and 500");
+        }
+        List<String> jobIds;
+        if (after == null || after.isBlank()) {
+            jobIds = jdbcClient.sql(FIRST_JOB_IDS_SQL).param("limit", limit).query(String.class).list();
+        } else {
+            validateUuid(after, "after");
+            jobIds = jdbcClient.sql(JOB_IDS_AFTER_SQL).param("after", after).param("limit", limit)
+                    .query(String.class).list();
+        }
+        jobIds.forEach(this::reconcile);
+        String nextAfter = jobIds.size() == limit ? jobIds.get(jobIds.size() - 1) : null;
+        return new ReconcileResult(jobIds.size(), nextAfter);
+    }
+}
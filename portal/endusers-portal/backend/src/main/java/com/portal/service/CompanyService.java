@@ -1,12 +1,23 @@
 package com.portal.service;
 
+import com.portal.dto.BulkResult;
+import com.portal.dto.CascadeProgress;
 import com.portal.dto.Company;
+import com.portal.dto.PageRequest;
 import com.portal.dto.PageResponse;
+import com.portal.util.BulkWriter;
+import com.portal.util.CountCache;
+import com.portal.util.EntityCache;
+import com.portal.util.PagedQuery;
+import com.portal.util.RowMappers;
 import com.portal.util.TableNames;
+import com.portal.util.WriteRetrier;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 
 import static com.portal.util.ValidationUtil.*;
 
@@ -14,144 +25,164 @@ import static com.portal.util.ValidationUtil.*;
 public class CompanyService {
 
     private final JdbcClient jdbcClient;
+    private final CountCache countCache;
+    private final BulkWriter bulkWriter;
+    private final WriteRetrier writeRetrier;
+    private final CallerIdentityService callerIdentities;
     private final JobService jobService;
-    private final String table = TableNames.COMPANIES;
+    private final EntityCache<Company> cache = new EntityCache<>(TableNames.COMPANIES);
 
-    public CompanyService(JdbcClient jdbcClient, JobService jobService) {
+    public CompanyService(JdbcClient jdbcClient, JobService jobService, CountCache countCache, BulkWriter bulkWriter,
+                          WriteRetrier writeRetrier, CallerIdentityService callerIdentities) {
         this.jdbcClient = jdbcClient;
         this.jobService = jobService;
+        this.countCache = countCache;
+        this.bulkWriter = bulkWriter;
+        this.writeRetrier = writeRetrier;
+        this.callerIdentities = callerIdentities;
     }
 
-    private static final String SELECT_COLUMNS = """
-            CAST(id AS text) AS id, CAST(user_id AS text) AS user_id,
-            name, logo_url, details, corporate_website,
-            hr_contact_name, hr_contact_email, legal_contact_name, legal_contact_email,
-            status, is_deleted, CAST(deleted_at AS text) AS deleted_at,
-            CAST(created_at AS text) AS created_at, CAST(updated_at AS text) AS updated_at
-            """;
+    private static final String SELECT_COLUMNS = RowMappers.COMPANY_COLUMNS;
+
+    private static final String FIND_BY_ID_SQL = "SELECT %s FROM %s WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
+            .formatted(SELECT_COLUMNS, TableNames.COMPANIES);
+
+    private static final String FIND_BY_USER_ID_SQL = "SELECT %s FROM %s WHERE user_id = CAST(:userId AS uuid) AND is_deleted = FALSE"
+            .formatted(SELECT_COLUMNS, TableNames.COMPANIES);
+
+    private static final String SOFT_DELETE_SQL = "UPDATE %s SET is_deleted = TRUE, deleted_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE RETURNING %s"
+            .formatted(TableNames.COMPANIES, SELECT_COLUMNS);
+
+    private static final String DISABLE_SQL = "UPDATE %s SET status = 'DISABLED', updated_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE RETURNING %s"
+            .formatted(TableNames.COMPANIES, SELECT_COLUMNS);
+
+    private static final String ENABLE_SQL = "UPDATE %s SET status = 'ACTIVE', updated_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE RETURNING %s"
+            .formatted(TableNames.COMPANIES, SELECT_COLUMNS);
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO %s (id, user_id, name, logo_url, details, corporate_website,
+                hr_contact_name, hr_contact_email, legal_contact_name, legal_contact_email,
+                status, created_at, updated_at)
+            VALUES (CAST(:id AS uuid), CAST(:userId AS uuid), :name, :logoUrl, :details, :corporateWebsite,
+                :hrContactName, :hrContactEmail, :legalContactName, :legalContactEmail,
+                COALESCE(:status, 'ACTIVE'),
+                COALESCE(CAST(:createdAt AS timestamptz), now()), now())
+            ON CONFLICT (id)
+            DO UPDATE SET
+                name = EXCLUDED.name, logo_url = EXCLUDED.logo_url,
+                details = EXCLUDED.details, corporate_website = EXCLUDED.corporate_website,
+                hr_contact_name = EXCLUDED.hr_contact_name, hr_contact_email = EXCLUDED.hr_contact_email,
+                legal_contact_name = EXCLUDED.legal_contact_name, legal_contact_email = EXCLUDED.legal_contact_email,
+                status = EXCLUDED.status, updated_at = now()
+            """.formatted(TableNames.COMPANIES);
+
+    private static final String COUNT_ACTIVE = CountCache.key(TableNames.COMPANIES, "active");
+    private static final String COUNT_ALL = CountCache.key(TableNames.COMPANIES, "all");
+
+    private final PagedQuery<Company> activePage = new PagedQuery<>(
+            SELECT_COLUMNS, TableNames.COMPANIES, "is_deleted = FALSE", "created_at",
+            RowMappers.COMPANY, Company::createdAt, Company::id);
+    private final PagedQuery<Company> allPage = new PagedQuery<>(
+            SELECT_COLUMNS, TableNames.COMPANIES, "TRUE", "created_at",
+            RowMappers.COMPANY, Company::createdAt, Company::id);
 
     public Company findById(String id) {
         validateUuid(id, "id");
-        String sql = "SELECT %s FROM %s WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
-                .formatted(SELECT_COLUMNS, table);
-        return jdbcClient.sql(sql)
-                .param("id", id)
-                .query(Company.class)
-                .optional().orElse(null);
+        return cache.get(id, key -> jdbcClient.sql(FIND_BY_ID_SQL)
+                .param("id", key)
+                .query(RowMappers.COMPANY)
+                .optional().orElse(null));
     }
 
     public Company findByUserId(String userId) {
         validateUuid(userId, "userId");
-        String sql = "SELECT %s FROM %s WHERE user_id = CAST(:userId AS uuid) AND is_deleted = FALSE"
-                .formatted(SELECT_COLUMNS, table);
-        return jdbcClient.sql(sql)
+        return jdbcClient.sql(FIND_BY_USER_ID_SQL)
                 .param("userId", userId)
-                .query(Company.class)
+                .query(RowMappers.COMPANY)
                 .optional().orElse(null);
     }
 
-    public PageResponse<Company> listCompanies(int page, int size) {
-        long total = countActive();
-        String sql = "SELECT %s FROM %s WHERE is_deleted = FALSE ORDER BY created_at DESC LIMIT :size OFFSET :offset"
-                .formatted(SELECT_COLUMNS, table);
-        List<Company> list = jdbcClient.sql(sql)
-                .param("size", size)
-                .param("offset", page * size)
-                .query(Company.class)
-                .list();
-        return PageResponse.of(list, page, size, total);
+    public PageResponse<Company> listCompanies(PageRequest pageRequest) {
+        return activePage.fetch(jdbcClient, pageRequest, Map.of(), countCache, COUNT_ACTIVE);
     }
 
-    public PageResponse<Company> listAllIncludingDeleted(int page, int size) {
-        long total = countAll();
-        String sql = "SELECT %s FROM %s ORDER BY created_at DESC LIMIT :size OFFSET :offset"
-                .formatted(SELECT_COLUMNS, table);
-        List<Company> list = jdbcClient.sql(sql)
-                .param("size", size)
-                .param("offset", page * size)
-                .query(Company.class)
-                .list();
-        return PageResponse.of(list, page, size, total);
+    public PageResponse<Company> listAllIncludingDeleted(PageRequest pageRequest) {
+        return allPage.fetch(jdbcClient, pageRequest, Map.of(), countCache, COUNT_ALL);
     }
 
     public void upsert(Company c) {
+        MapSqlParameterSource params = upsertParams(c);
+        writeRetrier.run(() -> jdbcClient.sql(UPSERT_SQL).paramSource(params).update());
+        invalidate(c.id(), c.userId());
+        countCache.invalidate(TableNames.COMPANIES);
+    }
+
+    public BulkResult upsertAll(List<Company> rows) {
+        BulkResult result = bulkWriter.write(UPSERT_SQL, rows, Company::id, this::upsertParams);
+        cache.invalidateAll();
+        callerIdentities.invalidateAllCompanies();
+        countCache.invalidate(TableNames.COMPANIES);
+        return result;
+    }
+
+    private MapSqlParameterSource upsertParams(Company c) {
         validateUuid(c.id(), "id");
         validateRequired(c.name(), "name");
-        String sql = """
-                INSERT INTO %s (id, user_id, name, logo_url, details, corporate_website,
-                    hr_contact_name, hr_contact_email, legal_contact_name, legal_contact_email,
-                    status, created_at, updated_at)
-                VALUES (CAST(:id AS uuid), CAST(:userId AS uuid), :name, :logoUrl, :details, :corporateWebsite,
-                    :hrContactName, :hrContactEmail, :legalContactName, :legalContactEmail,
-                    COALESCE(:status, 'ACTIVE'),
-                    COALESCE(CAST(:createdAt AS timestamptz), now()), now())
-                ON CONFLICT (id)
-                DO UPDATE SET
-                    name = EXCLUDED.name, logo_url = EXCLUDED.logo_url,
-                    details = EXCLUDED.details, corporate_website = EXCLUDED.corporate_website,
-                    hr_contact_name = EXCLUDED.hr_contact_name, hr_contact_email = EXCLUDED.hr_contact_email,
-                    legal_contact_name = EXCLUDED.legal_contact_name, legal_contact_email = EXCLUDED.legal_contact_email,
-                    status = EXCLUDED.status, updated_at = now()
-                """.formatted(table);
-        jdbcClient.sql(sql)
-                .param("id", c.id())
-                .param("userId", blankToNull(c.userId()))
-                .param("name", c.name())
-                .param("logoUrl", blankToNull(c.logoUrl()))
-                .param("details", blankToNull(c.details()))
-                .param("corporateWebsite", blankToNull(c.corporateWebsite()))
-                .param("hrContactName", blankToNull(c.hrContactName()))
-                .param("hrContactEmail", blankToNull(c.hrContactEmail()))
-                .param("legalContactName", blankToNull(c.legalContactName()))
-                .param("legalContactEmail", blankToNull(c.legalContactEmail()))
-                .param("status", blankToNull(c.status()))
-                .param("createdAt", blankToNull(c.createdAt()))
-                .update();
+        return new MapSqlParameterSource()
+                .addValue("id", c.id())
+                .addValue("userId", blankToNull(c.userId()))
+                .addValue("name", c.name())
+                .addValue("logoUrl", blankToNull(c.logoUrl()))
+                .addValue("details", blankToNull(c.details()))
+                .addValue("corporateWebsite", blankToNull(c.corporateWebsite()))
+                .addValue("hrContactName", blankToNull(c.hrContactName()))
+                .addValue("hrContactEmail", blankToNull(c.hrContactEmail()))
+                .addValue("legalContactName", blankToNull(c.legalContactName()))
+                .addValue("legalContactEmail", blankToNull(c.legalContactEmail()))
+                .addValue("status", blankToNull(c.status()))
+                .addValue("createdAt", blankToNull(c.createdAt()));
     }
 
     public Company softDelete(String id) {
         validateUuid(id, "id");
-        Company existing = findById(id);
-        if (existing == null) return null;
-        String sql = "UPDATE %s SET is_deleted = TRUE, deleted_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
-                .formatted(table);
-        jdbcClient.sql(sql).param("id", id).update();
-        return existing;
+        Company updated = writeRetrier.execute(() -> jdbcClient.sql(SOFT_DELETE_SQL).param("id", id)
+                .query(RowMappers.COMPANY)
+                .optional().orElse(null));
+        if (updated == null) return null;
+        invalidate(id, updated.userId());
+        countCache.invalidate(TableNames.COMPANIES);
+        return updated;
     }
 
-    public Company disable(String id) {
+    /**
+     * Disables the company and closes its open jobs. Returns null when the company does not exist;
+     * an incomplete result is resumed by calling again with its cursor.
+     */
+    public CascadeProgress disable(String id, String cursor) {
         validateUuid(id, "id");
-        Company existing = findById(id);
-        if (existing == null) return null;
-
-        // Mark company as DISABLED
-        String sql = "UPDATE %s SET status = 'DISABLED', updated_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
-                .formatted(table);
-        jdbcClient.sql(sql).param("id", id).update();
 
-        // Close all OPEN jobs for this company
-        jobService.closeJobsByCompanyId(id);
+        // Mark company as DISABLED (idempotent, so a resumed call passes through)
+        Company updated = writeRetrier.execute(() -> jdbcClient.sql(DISABLE_SQL).param("id", id)
+                .query(RowMappers.COMPANY)
+                .optional().orElse(null));
+        if (updated == null) return null;
+        invalidate(id, updated.userId());
 
-        return existing;
+        // Close OPEN jobs for this company, chunk by chunk
+        return jobService.closeJobsByCompanyId(id, cursor);
     }
 
     public Company enable(String id) {
         validateUuid(id, "id");
-        Company existing = findById(id);
-        if (existing == null) return null;
-        String sql = "UPDATE %s SET status = 'ACTIVE', updated_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
-                .formatted(table);
-        jdbcClient.sql(sql).param("id", id).update();
-        return existing;
-    }
-
-    private long countActive() {
-        return jdbcClient.sql("SELECT COUNT(*) FROM %s WHERE is_deleted = FALSE".formatted(table))
-                .query(Long.class).single();
+        Company updated = writeRetrier.execute(() -> jdbcClient.sql(ENABLE_SQL).param("id", id)
+                .query(RowMappers.COMPANY)
+                .optional().orElse(null));
+        invalidate(id, updated == null ? null : updated.userId());
+        return updated;
     }
 
-    private long countAll() {
-        return jdbcClient.sql("SELECT COUNT(*) FROM %s".formatted(table))
-                .query(Long.class).single();
+    private void invalidate(String id, String userId) {
+        cache.invalidate(id);
+        callerIdentities.invalidateCompany(userId, id);
     }
 }
@@ -1,14 +1,18 @@
 package com.portal.service;
 
-import com.portal.dto.Candidate;
-import com.portal.dto.Job;
+import com.portal.dto.AccessResult;
 import com.portal.dto.JobApplication;
+import com.portal.dto.PageRequest;
 import com.portal.dto.PageResponse;
+import com.portal.util.PagedQuery;
+import com.portal.util.RowMappers;
 import com.portal.util.TableNames;
+import com.portal.util.WriteRetrier;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 
 import static com.portal.util.ValidationUtil.*;
 
@@ -16,62 +20,150 @@ import static com.portal.util.ValidationUtil.*;
 public class JobApplicationService {
 
     private final JdbcClient jdbcClient;
-    private final JobService jobService;
-    private final CandidateService candidateService;
-    private final String table = TableNames.JOB_APPLICATIONS;
+    private final ApplicantCountService applicantCountService;
+    private final WriteRetrier writeRetrier;
 
-    public JobApplicationService(JdbcClient jdbcClient, JobService jobService, CandidateService candidateService) {
+    private static final String ROLE_CANDIDATE = "CANDIDATE";
+    private static final String ROLE_COMPANY = "COMPANY";
+
+    public JobApplicationService(JdbcClient jdbcClient, ApplicantCountService applicantCountService, WriteRetrier writeRetrier) {
         this.jdbcClient = jdbcClient;
-        this.jobService = jobService;
-        this.candidateService = candidateService;
+        this.applicantCountService = applicantCountService;
+        this.writeRetrier = writeRetrier;
     }
 
-    private static final String SELECT_COLUMNS = """
-            CAST(id AS text) AS id, CAST(job_id AS text) AS job_id,
-            CAST(candidate_id AS text) AS candidate_id,
-            candidate_name, job_title, status,
-            CAST(applied_at AS text) AS applied_at,
-            is_deleted, CAST(deleted_at AS text) AS deleted_at
-            """;
+    private static final String SELECT_COLUMNS = RowMappers.JOB_APPLICATION_COLUMNS;
+
+    private static final String FIND_BY_ID_SQL = "SELECT %s FROM %s WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
+            .formatted(SELECT_COLUMNS, TableNames.JOB_APPLICATIONS);
+
+    // Inserts only when the candidate is active and the job is open; an existing application for
+    // the same (job_id, candidate_id) yields no row instead of an error.
+    private static final String APPLY_SQL = """
+            INSERT INTO %s (id, job_id, candidate_id, candidate_name, job_title, status, applied_at)
+            SELECT CAST(:id AS uuid), j.id, c.id, c.name, j.title, 'APPLIED', now()
+            FROM %s c, %s j
+            WHERE c.id = CAST(:candidateId AS uuid) AND c.is_deleted = FALSE AND c.status = 'ACTIVE'
+              AND j.id = CAST(:jobId AS uuid) AND j.is_deleted = FALSE AND j.status = 'OPEN'
+            ON CONFLICT (job_id, candidate_id) DO NOTHING
+            RETURNING %s
+            """.formatted(TableNames.JOB_APPLICATIONS, TableNames.CANDIDATES, TableNames.JOBS, SELECT_COLUMNS);
+
+    private static final String APPLY_DIAGNOSTIC_SQL = """
+            SELECT
+                (SELECT status FROM %s WHERE id = CAST(:candidateId AS uuid) AND is_deleted = FALSE) AS candidate_status,
+                (SELECT status FROM %s WHERE id = CAST(:jobId AS uuid) AND is_deleted = FALSE) AS job_status
+            """.formatted(TableNames.CANDIDATES, TableNames.JOBS);
+
+    private static final String UPDATE_STATUS_SQL = "UPDATE %s SET status = :status WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE RETURNING %s"
+            .formatted(TableNames.JOB_APPLICATIONS, SELECT_COLUMNS);
+
+    private static final String SOFT_DELETE_SQL = "UPDATE %s SET is_deleted = TRUE, deleted_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE RETURNING %s"
+            .formatted(TableNames.JOB_APPLICATIONS, SELECT_COLUMNS);
+
+    // Caller ownership, as a predicate over an application row (alias a) or a given job / candidate
+    private static final String COMPANY_OWNS_JOB = """
+            EXISTS (SELECT 1 FROM %s j JOIN %s co ON co.id = j.company_id
+                    WHERE j.id = %%s AND j.is_deleted = FALSE
+                      AND co.user_id = CAST(:callerSub AS uuid) AND co.is_deleted = FALSE)
+            """.formatted(TableNames.JOBS, TableNames.COMPANIES);
+
+    private static final String CANDIDATE_IS_CALLER = """
+            EXISTS (SELECT 1 FROM %s c
+                    WHERE c.id = %%s AND c.user_id = CAST(:callerSub AS uuid) AND c.is_deleted = FALSE)
+            """.formatted(TableNames.CANDIDATES);
+
+    private static final String FIND_FOR_COMPANY_SQL = "SELECT %s, %s AS allowed FROM %s a WHERE a.id = CAST(:id AS uuid) AND a.is_deleted = FALSE"
+            .formatted(SELECT_COLUMNS, COMPANY_OWNS_JOB.formatted("a.job_id"), TableNames.JOB_APPLICATIONS);
+
+    private static final String FIND_FOR_CANDIDATE_SQL = "SELECT %s, %s AS allowed FROM %s a WHERE a.id = CAST(:id AS uuid) AND a.is_deleted = FALSE"
+            .formatted(SELECT_COLUMNS, CANDIDATE_IS_CALLER.formatted("a.candidate_id"), TableNames.JOB_APPLICATIONS);
+
+    private static final String COMPANY_OWNS_JOB_SQL = "SELECT " + COMPANY_OWNS_JOB.formatted("CAST(:jobId AS uuid)");
+
+    private static final String CANDIDATE_IS_CALLER_SQL = "SELECT " + CANDIDATE_IS_CALLER.formatted("CAST(:candidateId AS uuid)");
+
+    private final PagedQuery<JobApplication> byJobPage = new PagedQuery<>(
+            SELECT_COLUMNS, TableNames.JOB_APPLICATIONS, "job_id = CAST(:jobId AS uuid) AND is_deleted = FALSE", "applied_at",
+            RowMappers.JOB_APPLICATION, JobApplication::appliedAt, JobApplication::id);
+    private final PagedQuery<JobApplication> byCandidatePage = new PagedQuery<>(
+            SELECT_COLUMNS, TableNames.JOB_APPLICATIONS, "candidate_id = CAST(:candidateId AS uuid) AND is_deleted = FALSE", "applied_at",
+            RowMappers.JOB_APPLICATION, JobApplication::appliedAt, JobApplication::id);
+    private final PagedQuery<JobApplication> byOwnedJobPage = new PagedQuery<>(
+            SELECT_COLUMNS, TableNames.JOB_APPLICATIONS, "job_id = CAST(:jobId AS uuid) AND is_deleted = FALSE AND "
+                    + COMPANY_OWNS_JOB.formatted("CAST(:jobId AS uuid)"), "applied_at",
+            RowMappers.JOB_APPLICATION, JobApplication::appliedAt, JobApplication::id);
+    private final PagedQuery<JobApplication> byCallerCandidatePage = new PagedQuery<>(
+            SELECT_COLUMNS, TableNames.JOB_APPLICATIONS, "candidate_id = CAST(:candidateId AS uuid) AND is_deleted = FALSE AND "
+                    + CANDIDATE_IS_CALLER.formatted("CAST(:candidateId AS uuid)"), "applied_at",
+            RowMappers.JOB_APPLICATION, JobApplication::appliedAt, JobApplication::id);
 
     public JobApplication findById(String id) {
         validateUuid(id, "id");
-        String sql = "SELECT %s FROM %s WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
-                .formatted(SELECT_COLUMNS, table);
-        return jdbcClient.sql(sql)
+        return jdbcClient.sql(FIND_BY_ID_SQL)
                 .param("id", id)
-                .query(JobApplication.class)
+                .query(RowMappers.JOB_APPLICATION)
                 .optional().orElse(null);
     }
 
-    public PageResponse<JobApplication> listByJobId(String jobId, int page, int size) {
+    public PageResponse<JobApplication> listByJobId(String jobId, PageRequest pageRequest) {
+        validateUuid(jobId, "jobId");
+        return byJobPage.fetch(jdbcClient, pageRequest, Map.of("jobId", jobId));
+    }
+
+    public PageResponse<JobApplication> listByCandidateId(String candidateId, PageRequest pageRequest) {
+        validateUuid(candidateId, "candidateId");
+        return byCandidatePage.fetch(jdbcClient, pageRequest, Map.of("candidateId", candidateId));
+    }
+
+    /**
+     * Loads an application for a COMPANY (owner of the job) or CANDIDATE (the applicant) caller,
+     * with the ownership check joined into the same query.
+     */
+    public AccessResult<JobApplication> findByIdForCaller(String id, String callerSub, String role) {
+        validateUuid(id, "id");
+        validateUuid(callerSub, "callerSub");
+        String sql = switch (role == null ? "" : role) {
+            case ROLE_COMPANY -> FIND_FOR_COMPANY_SQL;
+            case ROLE_CANDIDATE -> FIND_FOR_CANDIDATE_SQL;
+            default -> null;
+        };
+        if (sql == null) return AccessResult.forbidden();
+        return jdbcClient.sql(sql)
+                .param("id", id)
+                .param("callerSub", callerSub)
+                .query((rs, rowNum) -> rs.getBoolean("allowed")
+                        ? AccessResult.ok(RowMappers.JOB_APPLICATION.mapRow(rs, rowNum))
+                        : AccessResult.<JobApplication>forbidden())
+                .optional().orElse(AccessResult.notFound());
+    }
+
+    /**
+     * Lists a job's applications for the company that owns it. The ownership check is part of the
+     * page query; only an empty page needs a second query to tell "none yet" from "not yours".
+     */
+    public AccessResult<PageResponse<JobApplication>> listByJobIdForCompany(String jobId, String callerSub,
+                                                                           PageRequest pageRequest) {
         validateUuid(jobId, "jobId");
-        long total = jdbcClient.sql("SELECT COUNT(*) FROM %s WHERE job_id = CAST(:jobId AS uuid) AND is_deleted = FALSE".formatted(table))
-                .param("jobId", jobId).query(Long.class).single();
-        String sql = "SELECT %s FROM %s WHERE job_id = CAST(:jobId AS uuid) AND is_deleted = FALSE ORDER BY applied_at DESC LIMIT :size OFFSET :offset"
-                .formatted(SELECT_COLUMNS, table);
-        List<JobApplication> list = jdbcClient.sql(sql)
-                .param("jobId", jobId)
-                .param("size", size)
-                .param("offset", page * size)
-                .query(JobApplication.class)
-                .list();
-        return PageResponse.of(list, page, size, total);
+        validateUuid(callerSub, "callerSub");
+        Map<String, String> params = Map.of("jobId", jobId, "callerSub", callerSub);
+        return ownedPage(byOwnedJobPage.fetch(jdbcClient, pageRequest, params), COMPANY_OWNS_JOB_SQL, params);
     }
 
-    public PageResponse<JobApplication> listByCandidateId(String candidateId, int page, int size) {
+    /** Lists a candidate's applications for that candidate, checked the same way. */
+    public AccessResult<PageResponse<JobApplication>> listByCandidateIdForCandidate(String candidateId, String callerSub,
+                                                                                   PageRequest pageRequest) {
         validateUuid(candidateId, "candidateId");
-        long total = jdbcClient.sql("SELECT COUNT(*) FROM %s WHERE candidate_id = CAST(:candidateId AS uuid) AND is_deleted = FALSE".formatted(table))
-                .param("candidateId", candidateId).query(Long.class).single();
-        String sql = "SELECT %s FROM %s WHERE candidate_id = CAST(:candidateId AS uuid) AND is_deleted = FALSE ORDER BY applied_at DESC LIMIT :size OFFSET :offset"
-                .formatted(SELECT_COLUMNS, table);
-        List<JobApplication> list = jdbcClient.sql(sql)
-                .param("candidateId", candidateId)
-                .param("size", size)
-                .param("offset", page * size)
-                .query(JobApplication.class)
-                .list();
-        return PageResponse.of(list, page, size, total);
+        validateUuid(callerSub, "callerSub");
+        Map<String, String> params = Map.of("candidateId", candidateId, "callerSub", callerSub);
+        return ownedPage(byCallerCandidatePage.fetch(jdbcClient, pageRequest, params), CANDIDATE_IS_CALLER_SQL, params);
+    }
+
+    private AccessResult<PageResponse<JobApplication>> ownedPage(PageResponse<JobApplication> page, String ownsSql,
+                                                                 Map<String, String> params) {
+        if (!page.content().isEmpty()) return AccessResult.ok(page);
+        boolean owned = jdbcClient.sql(ownsSql).params(params).query(Boolean.class).single();
+        return owned ? AccessResult.ok(page) : AccessResult.forbidden();
     }
 
     public JobApplication apply(JobApplication application) {
@@ -79,55 +171,39 @@ public class JobApplicationService {
         validateUuid(application.jobId(), "jobId");
         validateUuid(application.candidateId(), "candidateId");
 
-        // Application-layer referential integrity
-        Candidate candidate = candidateService.findById(application.candidateId());
-        if (candidate == null) {
-            throw new IllegalArgumentException("Candidate not found or has been deleted");
-        }
-        if (!"ACTIVE".equals(candidate.status())) {
-            throw new IllegalArgumentException("Candidate is disabled. Cannot apply.");
-        }
-
-        Job job = jobService.findById(application.jobId());
-        if (job == null) {
-            throw new IllegalArgumentException("Job not found or has been deleted");
-        }
-        if (!"OPEN".equals(job.status())) {
-            throw new IllegalArgumentException("Job is not open for applications");
+        JobApplication created = writeRetrier.inTransaction(status -> {
+            JobApplication row = jdbcClient.sql(APPLY_SQL)
+                    .param("id", application.id())
+                    .param("jobId", application.jobId())
+                    .param("candidateId", application.candidateId())
+                    .query(RowMappers.JOB_APPLICATION)
+                    .optional().orElse(null);
+            if (row != null) {
+                applicantCountService.increment(application.jobId());
+            }
+            return row;
+        });
+        if (created == null) {
+            throw new IllegalArgumentException(rejectionReason(application));
         }
+        applicantCountService.maybeFold(application.jobId());
+        return created;
+    }
 
-        // Check for duplicate application
-        String dupCheck = """
-                SELECT COUNT(*) FROM %s
-                WHERE job_id = CAST(:jobId AS uuid)
-                AND candidate_id = CAST(:candidateId AS uuid)
-                AND is_deleted = FALSE
-                """.formatted(table);
-        long existing = jdbcClient.sql(dupCheck)
-                .param("jobId", application.jobId())
+    // Only runs when apply inserted nothing, to tell the caller why.
+    private String rejectionReason(JobApplication application) {
+        String[] states = jdbcClient.sql(APPLY_DIAGNOSTIC_SQL)
                 .param("candidateId", application.candidateId())
-                .query(Long.class).single();
-        if (existing > 0) {
-            throw new IllegalArgumentException("Candidate has already applied for this job");
-        }
-
-        String sql = """
-                INSERT INTO %s (id, job_id, candidate_id, candidate_name, job_title, status, applied_at)
-                VALUES (CAST(:id AS uuid), CAST(:jobId AS uuid), CAST(:candidateId AS uuid),
-                        :candidateName, :jobTitle, 'APPLIED', now())
-                """.formatted(table);
-        jdbcClient.sql(sql)
-                .param("id", application.id())
                 .param("jobId", application.jobId())
-                .param("candidateId", application.candidateId())
-                .param("candidateName", candidate.name())
-                .param("jobTitle", job.title())
-                .update();
-
-        // Atomically increment applicant count
-        jobService.incrementApplicantCount(application.jobId());
-
-        return findById(application.id());
+                .query((rs, rowNum) -> new String[] {rs.getString(1), rs.getString(2)})
+                .single();
+        String candidateStatus = states[0];
+        String jobStatus = states[1];
+        if (candidateStatus == null) return "Candidate not found or has been deleted";
+        if (!"ACTIVE".equals(candidateStatus)) return "Candidate is disabled. Cannot apply.";
+        if (jobStatus == null) return "Job not found or has been deleted";
+        if (!"OPEN".equals(jobStatus)) return "Job is not open for applications";
+        return "Candidate has already applied for this job";
     }
 
     public JobApplication updateStatus(String id, String newStatus) {
@@ -139,25 +215,23 @@ public class JobApplicationService {
             throw new IllegalArgumentException("Invalid status. Must be one of: APPLIED, SHORTLISTED, REJECTED, HIRED");
         }
 
-        JobApplication existing = findById(id);
-        if (existing == null) return null;
-
-        String sql = "UPDATE %s SET status = :status WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
-                .formatted(table);
-        jdbcClient.sql(sql)
+        return writeRetrier.execute(() -> jdbcClient.sql(UPDATE_STATUS_SQL)
                 .param("id", id)
                 .param("status", newStatus)
-                .update();
-        return findById(id);
+                .query(RowMappers.JOB_APPLICATION)
+                .optional().orElse(null));
     }
 
     public JobApplication softDelete(String id) {
         validateUuid(id, "id");
-        JobApplication existing = findById(id);
-        if (existing == null) return null;
-        String sql = "UPDATE %s SET is_deleted = TRUE, deleted_at = now() WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
-                .formatted(table);
-        jdbcClient.sql(sql).param("id", id).update();
-        return existing;
+        return writeRetrier.inTransaction(status -> {
+            JobApplication row = jdbcClient.sql(SOFT_DELETE_SQL).param("id", id)
+                    .query(RowMappers.JOB_APPLICATION)
+                    .optional().orElse(null);
+            if (row != null) {
+                applicantCountService.decrement(row.jobId());
+            }
+            return row;
+        });
     }
 }
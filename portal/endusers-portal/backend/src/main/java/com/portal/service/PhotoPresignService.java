@@ -1,9 +1,11 @@
 package com.portal.service;
 
+import com.portal.util.RequestDeadline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
@@ -19,9 +21,11 @@ public class PhotoPresignService {
 
     private static final Logger log = LoggerFactory.getLogger(PhotoPresignService.class);
     private static final Duration URL_EXPIRY = Duration.ofMinutes(15);
+    private static final Duration S3_CALL_TIMEOUT = Duration.ofSeconds(10);
     private final String bucket;
     private final Region region;
     private final S3Presigner presigner;
+    private final S3Client s3Client;
 
     public PhotoPresignService() {
         this.bucket = System.getenv("S3_PHOTO_BUCKET");
@@ -30,6 +34,9 @@ public class PhotoPresignService {
         this.presigner = S3Presigner.builder()
                 .region(region)
                 .build();
+        this.s3Client = S3Client.builder()
+                .region(region)
+                .build();
     }
 
     private String photoKey(String userId) {
@@ -99,13 +106,11 @@ public class PhotoPresignService {
     }
 
     private boolean objectExists(String key) {
-        var s3Client = software.amazon.awssdk.services.s3.S3Client.builder()
-                .region(region)
-                .build();
         try {
             s3Client.headObject(HeadObjectRequest.builder()
                     .bucket(bucket)
                     .key(key)
+                    .overrideConfiguration(c -> c.apiCallTimeout(RequestDeadline.callTimeout(S3_CALL_TIMEOUT)))
                     .build());
             return true;
         } catch (NoSuchKeyException ignored) {
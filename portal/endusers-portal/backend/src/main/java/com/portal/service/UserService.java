@@ -1,12 +1,21 @@
 package com.portal.service;
 
+import com.portal.dto.BulkResult;
+import com.portal.dto.PageRequest;
 import com.portal.dto.PageResponse;
 import com.portal.dto.User;
+import com.portal.util.BulkWriter;
+import com.portal.util.CountCache;
+import com.portal.util.PagedQuery;
+import com.portal.util.RowMappers;
 import com.portal.util.TableNames;
+import com.portal.util.WriteRetrier;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 
 import static com.portal.util.ValidationUtil.*;
 
@@ -14,103 +23,104 @@ import static com.portal.util.ValidationUtil.*;
 public class UserService {
 
     private final JdbcClient jdbcClient;
-    private final String table = TableNames.USERS;
+    private final CountCache countCache;
+    private final BulkWriter bulkWriter;
+    private final WriteRetrier writeRetrier;
 
-    public UserService(JdbcClient jdbcClient) {
+    public UserService(JdbcClient jdbcClient, CountCache countCache, BulkWriter bulkWriter, WriteRetrier writeRetrier) {
         this.jdbcClient = jdbcClient;
+        this.countCache = countCache;
+        this.bulkWriter = bulkWriter;
+        this.writeRetrier = writeRetrier;
     }
 
+    private static final String SELECT_COLUMNS = RowMappers.USER_COLUMNS;
+
+    private static final String FIND_BY_ID_SQL = "SELECT %s FROM %s WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE"
+            .formatted(SELECT_COLUMNS, TableNames.USERS);
+
+    private static final String FIND_BY_USERNAME_SQL = "SELECT %s FROM %s WHERE username = :username AND is_deleted = FALSE"
+            .formatted(SELECT_COLUMNS, TableNames.USERS);
+
+    private static final String SOFT_DELETE_SQL = """
+            UPDATE %s SET is_deleted = TRUE, deleted_at = now()
+            WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE
+            RETURNING %s
+            """.formatted(TableNames.USERS, SELECT_COLUMNS);
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO %s (id, username, password_hash, role, linked_entity_id, status, created_at)
+            VALUES (CAST(:id AS uuid), :username, :passwordHash, :role,
+                    CAST(:linkedEntityId AS uuid), COALESCE(:status, 'ACTIVE'),
+                    COALESCE(CAST(:createdAt AS timestamptz), now()))
+            ON CONFLICT (id)
+            DO UPDATE SET
+                username = EXCLUDED.username,
+                password_hash = EXCLUDED.password_hash,
+                role = EXCLUDED.role,
+                linked_entity_id = EXCLUDED.linked_entity_id,
+                status = EXCLUDED.status
+            """.formatted(TableNames.USERS);
+
+    private static final String COUNT_ACTIVE = CountCache.key(TableNames.USERS, "active");
+
+    private final PagedQuery<User> activePage = new PagedQuery<>(
+            SELECT_COLUMNS, TableNames.USERS, "is_deleted = FALSE", "created_at",
+            RowMappers.USER, User::createdAt, User::id);
+
     public User findById(String id) {
         validateUuid(id, "id");
-        String sql = """
-                SELECT CAST(id AS text) AS id, username, password_hash, role,
-                       CAST(linked_entity_id AS text) AS linked_entity_id,
-                       status, is_deleted, CAST(deleted_at AS text) AS deleted_at,
-                       CAST(created_at AS text) AS created_at
-                FROM %s WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE
-                """.formatted(table);
-        return jdbcClient.sql(sql)
+        return jdbcClient.sql(FIND_BY_ID_SQL)
                 .param("id", id)
-                .query(User.class)
+                .query(RowMappers.USER)
                 .optional().orElse(null);
     }
 
     public User findByUsername(String username) {
         validateRequired(username, "username");
-        String sql = """
-                SELECT CAST(id AS text) AS id, username, password_hash, role,
-                       CAST(linked_entity_id AS text) AS linked_entity_id,
-                       status, is_deleted, CAST(deleted_at AS text) AS deleted_at,
-                       CAST(created_at AS text) AS created_at
-                FROM %s WHERE username = :username AND is_deleted = FALSE
-                """.formatted(table);
-        return jdbcClient.sql(sql)
+        return jdbcClient.sql(FIND_BY_USERNAME_SQL)
                 .param("username", username)
-                .query(User.class)
+                .query(RowMappers.USER)
                 .optional().orElse(null);
     }
 
-    public PageResponse<User> listUsers(int page, int size) {
-        long total = countActive();
-        String sql = """
-                SELECT CAST(id AS text) AS id, username, password_hash, role,
-                       CAST(linked_entity_id AS text) AS linked_entity_id,
-                       status, is_deleted, CAST(deleted_at AS text) AS deleted_at,
-                       CAST(created_at AS text) AS created_at
-                FROM %s WHERE is_deleted = FALSE
-                ORDER BY created_at DESC
-                LIMIT :size OFFSET :offset
-                """.formatted(table);
-        List<User> users = jdbcClient.sql(sql)
-                .param("size", size)
-                .param("offset", page * size)
-                .query(User.class)
-                .list();
-        return PageResponse.of(users, page, size, total);
+    public PageResponse<User> listUsers(PageRequest pageRequest) {
+        return activePage.fetch(jdbcClient, pageRequest, Map.of(), countCache, COUNT_ACTIVE);
     }
 
     public void upsert(User user) {
+        MapSqlParameterSource params = upsertParams(user);
+        writeRetrier.run(() -> jdbcClient.sql(UPSERT_SQL).paramSource(params).update());
+        countCache.invalidate(TableNames.USERS);
+    }
+
+    public BulkResult upsertAll(List<User> rows) {
+        BulkResult result = bulkWriter.write(UPSERT_SQL, rows, User::id, this::upsertParams);
+        countCache.invalidate(TableNames.USERS);
+        return result;
+    }
+
+    private MapSqlParameterSource upsertParams(User user) {
         validateUuid(user.id(), "id");
         validateRequired(user.username(), "username");
         validateRequired(user.role(), "role");
-        String sql = """
-                INSERT INTO %s (id, username, password_hash, role, linked_entity_id, status, created_at)
-                VALUES (CAST(:id AS uuid), :username, :passwordHash, :role,
-                        CAST(:linkedEntityId AS uuid), COALESCE(:status, 'ACTIVE'),
-                        COALESCE(CAST(:createdAt AS timestamptz), now()))
-                ON CONFLICT (id)
-                DO UPDATE SET
-                    username = EXCLUDED.username,
-                    password_hash = EXCLUDED.password_hash,
-                    role = EXCLUDED.role,
-                    linked_entity_id = EXCLUDED.linked_entity_id,
-                    status = EXCLUDED.status
-                """.formatted(table);
-        jdbcClient.sql(sql)
-                .param("id", user.id())
-                .param("username", user.username())
-                .param("passwordHash", blankToNull(user.passwordHash()))
-                .param("role", user.role())
-                .param("linkedEntityId", blankToNull(user.linkedEntityId()))
-                .param("status", blankToNull(user.status()))
-                .param("createdAt", blankToNull(user.createdAt()))
-                .update();
+        return new MapSqlParameterSource()
+                .addValue("id", user.id())
+                .addValue("username", user.username())
+                .addValue("passwordHash", blankToNull(user.passwordHash()))
+                .addValue("role", user.role())
+                .addValue("linkedEntityId", blankToNull(user.linkedEntityId()))
+                .addValue("status", blankToNull(user.status()))
+                .addValue("createdAt", blankToNull(user.createdAt()));
     }
 
     public User softDelete(String id) {
         validateUuid(id, "id");
-        User existing = findById(id);
-        if (existing == null) return null;
-        String sql = """
-                UPDATE %s SET is_deleted = TRUE, deleted_at = now()
-                WHERE id = CAST(:id AS uuid) AND is_deleted = FALSE
-                """.formatted(table);
-        jdbcClient.sql(sql).param("id", id).update();
-        return existing;
-    }
-
-    private long countActive() {
-        String sql = "SELECT COUNT(*) FROM %s WHERE is_deleted = FALSE".formatted(table);
-        return jdbcClient.sql(sql).query(Long.class).single();
+        User updated = writeRetrier.execute(() -> jdbcClient.sql(SOFT_DELETE_SQL).param("id", id)
+                .query(RowMappers.USER)
+                .optional().orElse(null));
+        if (updated == null) return null;
+        countCache.invalidate(TableNames.USERS);
+        return updated;
     }
 }
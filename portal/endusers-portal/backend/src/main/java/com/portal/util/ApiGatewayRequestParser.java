@@ -1,10 +1,19 @@
 package com.portal.util;
 
 import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.portal.dto.PageRequest;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Component
@@ -26,13 +35,73 @@ public class ApiGatewayRequestParser {
         return "";
     }
 
-    public String readQueryParam(APIGatewayV2HTTPEvent event, String key) {
-        Map<String, String> params = event.getQueryStringParameters();
-        return (params == null) ? null : params.get(key);
+    public String readAcceptEncoding(APIGatewayV2HTTPEvent event) {
+        Map<String, String> headers = event.getHeaders();
+        return headers == null ? null : headers.get("accept-encoding");
     }
 
-    public int readIntQueryParam(APIGatewayV2HTTPEvent event, String key, int defaultValue) {
-        String value = readQueryParam(event, key);
+    /**
+     * Builds the context handlers work from. The JWT claims, query string and headers are each
+     * read once, and a base64 body is decoded here; an invalid encoding is an
+     * {@link IllegalArgumentException}.
+     */
+    public RequestContext readContext(APIGatewayV2HTTPEvent event, String method, String path,
+                                      String route, Map<String, String> pathParameters) {
+        Map<String, String> claims = extractJwtClaims(event);
+        Map<String, String> query = event.getQueryStringParameters() == null
+                ? Map.of() : Collections.unmodifiableMap(event.getQueryStringParameters());
+        Map<String, String> headers = event.getHeaders();
+        // HTTP API (payload v2) delivers header names in lower case
+        String ifNoneMatch = headers == null ? null : headers.get("if-none-match");
+        return new RequestContext(
+                method,
+                path,
+                route,
+                claims == null ? null : claims.get("custom:role"),
+                claims == null ? null : claims.get("sub"),
+                query,
+                pathParameters(event, pathParameters),
+                readPageRequest(query),
+                ifNoneMatch,
+                readBody(event));
+    }
+
+    /** Parses the JSON body into {@code type}. */
+    public <T> T readJsonBody(RequestContext request, Class<T> type) throws JsonProcessingException {
+        try {
+            return ApiResponseFactory.objectMapper().readValue(request.body(), type);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a bulk body given either as a JSON array or as newline-delimited JSON objects.
+     */
+    public <T> List<T> readBulkBody(RequestContext request, Class<T> type) throws IOException {
+        if (!request.hasBody()) return List.of();
+
+        ObjectMapper mapper = ApiResponseFactory.objectMapper();
+        byte[] bytes = request.body();
+        if (startsWithArray(bytes)) {
+            return mapper.readerForListOf(type).readValue(bytes);
+        }
+        try (MappingIterator<T> rows = mapper.readerFor(type).readValues(bytes)) {
+            return rows.readAll();
+        }
+    }
+
+    private static PageRequest readPageRequest(Map<String, String> query) {
+        return new PageRequest(
+                readInt(query.get("page"), 0),
+                readInt(query.get("size"), 20),
+                query.get("cursor"),
+                !"false".equalsIgnoreCase(query.get("withTotal")));
+    }
+
+    private static int readInt(String value, int defaultValue) {
         if (value == null || value.isBlank()) {
             return defaultValue;
         }
@@ -43,31 +112,32 @@ public class ApiGatewayRequestParser {
         }
     }
 
-    public String readBody(APIGatewayV2HTTPEvent event) {
+    private static Map<String, String> pathParameters(APIGatewayV2HTTPEvent event, Map<String, String> captured) {
+        Map<String, String> fromGateway = event.getPathParameters();
+        if (fromGateway == null || fromGateway.isEmpty()) return captured;
+        if (captured.isEmpty()) return Collections.unmodifiableMap(fromGateway);
+        Map<String, String> merged = new HashMap<>(captured);
+        merged.putAll(fromGateway);
+        return Collections.unmodifiableMap(merged);
+    }
+
+    private static byte[] readBody(APIGatewayV2HTTPEvent event) {
         String body = event.getBody();
         if (body == null) return null;
-
         if (Boolean.TRUE.equals(event.getIsBase64Encoded())) {
-            byte[] decoded = Base64.getDecoder().decode(body);
-            return new String(decoded, StandardCharsets.UTF_8);
+            return Base64.getDecoder().decode(body);
         }
-
-        return body;
+        return body.getBytes(StandardCharsets.UTF_8);
     }
 
-    public String readUserRole(APIGatewayV2HTTPEvent event) {
-        Map<String, String> jwt = extractJwtClaims(event);
-        if (jwt == null) return null;
-        return jwt.get("custom:role");
-    }
-
-    public String readUserId(APIGatewayV2HTTPEvent event) {
-        Map<String, String> jwt = extractJwtClaims(event);
-        if (jwt == null) return null;
-        return jwt.get("sub");
+    private static boolean startsWithArray(byte[] bytes) {
+        for (byte b : bytes) {
+            if (!Character.isWhitespace(b)) return b == '[';
+        }
+        return false;
     }
 
-    private Map<String, String> extractJwtClaims(APIGatewayV2HTTPEvent event) {
+    private static Map<String, String> extractJwtClaims(APIGatewayV2HTTPEvent event) {
         APIGatewayV2HTTPEvent.RequestContext ctx = event.getRequestContext();
         if (ctx == null || ctx.getAuthorizer() == null) return null;
         APIGatewayV2HTTPEvent.RequestContext.Authorizer auth = ctx.getAuthorizer();
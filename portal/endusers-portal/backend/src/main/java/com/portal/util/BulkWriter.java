@@ -0,0 +1,121 @@
+package com.portal.util;
+
+import com.portal.dto.BulkResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes many rows with one parameterised statement using JDBC batching. Rows are validated up
+ * front, then written in chunks, one transaction per chunk, sized below DSQL's per-transaction row
+ * limit. A chunk the database rejects is split in half and retried until the rows that fail are
+ * isolated, so one bad row does not fail the 499 around it. Only data errors such as constraint
+ * violations are split; timeouts, write conflicts that outlast the retries and other failures
+ * are not caused by any one row, so they fail the whole chunk.
+ */
+@Component
+public class BulkWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkWriter.class);
+
+    public static final int MAX_ROWS = 5_000;
+    private static final int CHUNK_SIZE = 500;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final WriteRetrier writeRetrier;
+
+    public BulkWriter(NamedParameterJdbcTemplate jdbcTemplate, WriteRetrier writeRetrier) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeRetrier = writeRetrier;
+    }
+
+    /**
+     * @param prepare validates a row and returns its statement parameters; an
+     *                {@link IllegalArgumentException} marks the row as failed with that message
+     */
+    public <T> BulkResult write(String sql, List<T> rows, Function<T, String> idOf,
+                                Function<T, SqlParameterSource> prepare) {
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("At least one row is required");
+        }
+        if (rows.size() > MAX_ROWS) {
+            throw new IllegalArgumentException("At most " + MAX_ROWS + " rows are allowed per request");
+        }
+        List<BulkResult.Row> results = new ArrayList<>(rows.size());
+        List<Integer> pendingIndexes = new ArrayList<>(rows.size());
+        List<SqlParameterSource> pendingParams = new ArrayList<>(rows.size());
+
+        for (int i = 0; i < rows.size(); i++) {
+            T row = rows.get(i);
+            if (row == null) {
+                results.add(new BulkResult.Row(i, null, BulkResult.STATUS_FAILED, "Row is empty"));
+                continue;
+            }
+            try {
+                pendingParams.add(prepare.apply(row));
+                pendingIndexes.add(i);
+            } catch (IllegalArgumentException e) {
+                results.add(new BulkResult.Row(i, idOf.apply(row), BulkResult.STATUS_FAILED, e.getMessage()));
+            }
+        }
+
+        for (int from = 0; from < pendingParams.size(); from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, pendingParams.size());
+            writeChunk(sql, pendingParams.subList(from, to), pendingIndexes.subList(from, to), rows, idOf, results);
+        }
+
+        results.sort(Comparator.comparingInt(BulkResult.Row::index));
+        return BulkResult.of(results);
+    }
+
+    private <T> void writeChunk(String sql, List<SqlParameterSource> params, List<Integer> indexes,
+                                List<T> rows, Function<T, String> idOf, List<BulkResult.Row> results) {
+        SqlParameterSource[] batch = params.toArray(new SqlParameterSource[0]);
+        try {
+            int[] counts = writeRetrier.inTransaction(status -> jdbcTemplate.batchUpdate(sql, batch));
+            for (int k = 0; k < indexes.size(); k++) {
+                int index = indexes.get(k);
+                boolean written = counts == null || k >= counts.length
+                        || counts[k] > 0 || counts[k] == Statement.SUCCESS_NO_INFO;
+                results.add(new BulkResult.Row(index, idOf.apply(rows.get(index)),
+                        written ? BulkResult.STATUS_OK : BulkResult.STATUS_FAILED,
+                        written ? null : "Row was not written"));
+            }
+        } catch (DataIntegrityViolationException e) {
+            if (indexes.size() > 1) {
+                int mid = indexes.size() / 2;
+                writeChunk(sql, params.subList(0, mid), indexes.subList(0, mid), rows, idOf, results);
+                writeChunk(sql, params.subList(mid, params.size()), indexes.subList(mid, indexes.size()),
+                        rows, idOf, results);
+                return;
+            }
+            int index = indexes.get(0);
+            String message = e.getMostSpecificCause().getMessage();
+            log.warn("Bulk row {} failed: {}", index, message);
+            results.add(new BulkResult.Row(index, idOf.apply(rows.get(index)), BulkResult.STATUS_FAILED, message));
+        } catch (DataAccessException e) {
+            failChunk(indexes, rows, idOf, results, e.getMostSpecificCause().getMessage());
+        } catch (WriteConflictException e) {
+            failChunk(indexes, rows, idOf, results, e.getMessage());
+        }
+    }
+
+    private <T> void failChunk(List<Integer> indexes, List<T> rows, Function<T, String> idOf,
+                               List<BulkResult.Row> results, String message) {
+        log.warn("Bulk chunk of {} rows failed: {}", indexes.size(), message);
+        for (int index : indexes) {
+            results.add(new BulkResult.Row(index, idOf.apply(rows.get(index)), BulkResult.STATUS_FAILED,
+                    "Chunk of " + indexes.size() + " rows rolled back: " + message));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.portal.util;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.portal.util.EnvUtil.readLongEnv;
+
+/**
+ * Short-lived cache of table row counts used for list totals. Entries are keyed by
+ * {@code table:variant} and dropped for a whole table whenever this container writes to it;
+ * writes from other containers are only picked up after the TTL, so cached totals are approximate.
+ */
+@Component
+public class CountCache {
+
+    private record Entry(long value, long expiresAtNanos) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    public CountCache() {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(readLongEnv("COUNT_CACHE_TTL_SECS", 60));
+    }
+
+    public static String key(String table, String variant) {
+        return table + ":" + variant;
+    }
+
+    public Long get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (System.nanoTime() - entry.expiresAtNanos() >= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    public void put(String key, long value) {
+        if (ttlNanos <= 0) return;
+        entries.put(key, new Entry(value, System.nanoTime() + ttlNanos));
+    }
+
+    public void invalidate(String table) {
+        String prefix = table + ":";
+        entries.keySet().removeIf(k -> k.startsWith(prefix));
+    }
+}
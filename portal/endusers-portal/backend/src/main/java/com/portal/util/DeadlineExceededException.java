@@ -0,0 +1,13 @@
+package com.portal.util;
+
+/**
+ * Thrown when the request deadline leaves too little time to start the next statement or call.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(long remainingMillis) {
+        super("Request deadline exceeded (" + Math.max(0, remainingMillis) + " ms left)");
+    }
+}
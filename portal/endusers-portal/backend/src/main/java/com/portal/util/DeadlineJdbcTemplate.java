@@ -0,0 +1,31 @@
+package com.portal.util;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JdbcTemplate that caps each statement's query timeout at the time left on the request deadline,
+ * and refuses to start a statement once less than a second remains (the JDBC timeout granularity).
+ */
+public class DeadlineJdbcTemplate extends JdbcTemplate {
+
+    public DeadlineJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        super.applyStatementSettings(stmt);
+        long remaining = RequestDeadline.remainingMillis();
+        if (remaining == Long.MAX_VALUE) return;
+        RequestDeadline.ensure(1_000);
+        int seconds = (int) Math.min(Integer.MAX_VALUE, remaining / 1_000);
+        int current = stmt.getQueryTimeout();
+        if (current == 0 || seconds < current) {
+            stmt.setQueryTimeout(seconds);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.portal.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.portal.util.EnvUtil.readLongEnv;
+
+/**
+ * Bounded read-through cache of entities by id for one table, kept per container. Entries expire
+ * after {@code ENTITY_CACHE_TTL_SECS} and the least recently used entry is evicted beyond
+ * {@code ENTITY_CACHE_MAX_ENTRIES}. The owning service invalidates ids it writes; writes from other
+ * containers are only picked up after the TTL, so reads that gate a write must still be enforced
+ * by the write's own SQL. Only found rows are cached. A TTL of 0 disables caching. UUID keys are
+ * held in the lower-case form the database returns, so an id a client sent in upper case hits
+ * and is invalidated by the same entry.
+ */
+public class EntityCache<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityCache.class);
+
+    private record Entry<T>(T value, long expiresAtNanos) {}
+
+    public record Snapshot(String name, int size, long hits, long misses, long evictions,
+                           long expirations, long invalidations, double hitRatio) {}
+
+    private final String name;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LogThrottle logThrottle;
+    // Bumped on every invalidation; a load that raced with a write is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private final Map<String, Entry<T>> entries;
+
+    public EntityCache(String name) {
+        this(name, readLongEnv("ENTITY_CACHE_TTL_SECS", 10), (int) readLongEnv("ENTITY_CACHE_MAX_ENTRIES", 1_000));
+    }
+
+    public EntityCache(String name, long ttlSeconds, int maxEntries) {
+        this.name = name;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+        this.logThrottle = new LogThrottle(readLongEnv("ENTITY_CACHE_LOG_INTERVAL_SECS", 60));
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+                if (size() <= maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /** Returns the cached entity or loads, caches and returns it; null results are not cached. */
+    public T get(String id, Function<String, T> loader) {
+        if (logThrottle.tryAcquire()) {
+            log.info("Entity cache: {}", snapshot());
+        }
+        id = key(id);
+        if (ttlNanos <= 0) return loader.apply(id);
+        synchronized (entries) {
+            Entry<T> entry = entries.get(id);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAtNanos() < 0) {
+                    hits.increment();
+                    return entry.value();
+                }
+                entries.remove(id);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+        long loadedAt = generation.get();
+        T value = loader.apply(id);
+        if (value != null) {
+            synchronized (entries) {
+                if (generation.get() == loadedAt) {
+                    entries.put(id, new Entry<>(value, System.nanoTime() + ttlNanos));
+                }
+            }
+        }
+        return value;
+    }
+
+    public void invalidate(String id) {
+        id = key(id);
+        synchronized (entries) {
+            generation.incrementAndGet();
+            if (entries.remove(id) != null) invalidations.increment();
+        }
+    }
+
+    /** The canonical form of a UUID id; other ids are used as given. */
+    public static String key(String id) {
+        return ValidationUtil.isUuid(id) ? UUID.fromString(id).toString() : id;
+    }
+
+    /** Drops every entry whose value matches, e.g. by a field other than the key. */
+    public void invalidateIf(Predicate<T> matches) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            Iterator<Entry<T>> it = entries.values().iterator();
+            while (it.hasNext()) {
+                if (matches.test(it.next().value())) {
+                    it.remove();
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            invalidations.add(entries.size());
+            entries.clear();
+        }
+    }
+
+    public Snapshot snapshot() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        long h = hits.sum();
+        long m = misses.sum();
+        return new Snapshot(name, size, h, m, evictions.sum(), expirations.sum(), invalidations.sum(),
+                h + m == 0 ? 0 : (double) h / (h + m));
+    }
+}
@@ -0,0 +1,25 @@
+package com.portal.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets one caller per interval through, for periodic snapshot logging from hot paths. The first
+ * interval starts at construction.
+ */
+public final class LogThrottle {
+
+    private final long intervalNanos;
+    private final AtomicLong lastNanos = new AtomicLong(System.nanoTime());
+
+    public LogThrottle(long intervalSeconds) {
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+    }
+
+    /** True when an interval has passed since the last caller it let through. */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        long last = lastNanos.get();
+        return now - last >= intervalNanos && lastNanos.compareAndSet(last, now);
+    }
+}
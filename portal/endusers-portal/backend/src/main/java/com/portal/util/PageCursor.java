@@ -0,0 +1,42 @@
+package com.portal.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset pagination: the sort timestamp and id of the last row
+ * of the previous page, base64url-encoded. Both parts are checked on decode, so a tampered token
+ * is rejected as bad input before it reaches a SQL cast.
+ */
+public record PageCursor(String sortValue, String id) {
+
+    private static final char SEPARATOR = '|';
+    private static final String MSG_INVALID = "Invalid cursor";
+
+    public String encode() {
+        String raw = sortValue + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException(MSG_INVALID);
+        }
+        int sep = raw.lastIndexOf(SEPARATOR);
+        if (sep <= 0 || sep == raw.length() - 1) {
+            throw new ValidationException(MSG_INVALID);
+        }
+        PageCursor cursor = new PageCursor(raw.substring(0, sep), raw.substring(sep + 1));
+        ValidationUtil.validateUuid(cursor.id(), "cursor");
+        try {
+            RowMappers.parseTimestamp(cursor.sortValue());
+        } catch (DateTimeParseException e) {
+            throw new ValidationException(MSG_INVALID);
+        }
+        return cursor;
+    }
+}
@@ -0,0 +1,114 @@
+package com.portal.util;
+
+import com.portal.dto.PageRequest;
+import com.portal.dto.PageResponse;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Page query over a table ordered newest-first by a timestamp column with the id as tie-breaker.
+ * Supports classic page/size (OFFSET) paging and keyset paging from an opaque {@link PageCursor}.
+ * The total is computed by a scalar subquery in the same statement as the page, so a page with
+ * totals costs one round trip; without totals one extra row is fetched to derive {@code hasNext}.
+ */
+public final class PagedQuery<T> {
+
+    private static final String TOTAL_COLUMN = "total_count";
+
+    private final String offsetSql;
+    private final String offsetWithTotalSql;
+    private final String keysetSql;
+    private final String keysetWithTotalSql;
+    private final String countSql;
+    private final RowMapper<T> rowMapper;
+    private final Function<T, String> sortKey;
+    private final Function<T, String> idKey;
+
+    public PagedQuery(String selectColumns, String table, String where, String sortColumn,
+                      RowMapper<T> rowMapper, Function<T, String> sortKey, Function<T, String> idKey) {
+        String orderBy = "ORDER BY %s DESC, id DESC".formatted(sortColumn);
+        String keyset = """
+                (%1$s < CAST(:cursorSort AS timestamptz)
+                 OR (%1$s = CAST(:cursorSort AS timestamptz) AND id < CAST(:cursorId AS uuid)))
+                """.formatted(sortColumn);
+        this.countSql = "SELECT COUNT(*) FROM %s WHERE %s".formatted(table, where);
+        String withTotal = "%s, (%s) AS %s".formatted(selectColumns, countSql, TOTAL_COLUMN);
+
+        this.offsetSql = "SELECT %s FROM %s WHERE %s %s LIMIT :limit OFFSET :offset"
+                .formatted(selectColumns, table, where, orderBy);
+        this.offsetWithTotalSql = "SELECT %s FROM %s WHERE %s %s LIMIT :limit OFFSET :offset"
+                .formatted(withTotal, table, where, orderBy);
+        this.keysetSql = "SELECT %s FROM %s WHERE %s AND %s %s LIMIT :limit"
+                .formatted(selectColumns, table, where, keyset, orderBy);
+        this.keysetWithTotalSql = "SELECT %s FROM %s WHERE %s AND %s %s LIMIT :limit"
+                .formatted(withTotal, table, where, keyset, orderBy);
+        this.rowMapper = rowMapper;
+        this.sortKey = sortKey;
+        this.idKey = idKey;
+    }
+
+    public PageResponse<T> fetch(JdbcClient jdbcClient, PageRequest request, Map<String, ?> params) {
+        return fetch(jdbcClient, request, params, null, null);
+    }
+
+    /**
+     * Like {@link #fetch(JdbcClient, PageRequest, Map)}, but serves the total from {@code countCache}
+     * when present (reported as approximate) and skips counting in the page query.
+     */
+    public PageResponse<T> fetch(JdbcClient jdbcClient, PageRequest request, Map<String, ?> params,
+                                 CountCache countCache, String countKey) {
+        int size = request.size();
+        Long cachedTotal = request.withTotal() && countCache != null ? countCache.get(countKey) : null;
+        boolean countInQuery = request.withTotal() && cachedTotal == null;
+        long[] total = {0};
+        RowMapper<T> mapper = !countInQuery ? rowMapper : (rs, rowNum) -> {
+            total[0] = rs.getLong(TOTAL_COLUMN);
+            return rowMapper.mapRow(rs, rowNum);
+        };
+
+        List<T> list;
+        if (request.hasCursor()) {
+            PageCursor cursor = PageCursor.decode(request.cursor());
+            list = jdbcClient.sql(countInQuery ? keysetWithTotalSql : keysetSql)
+                    .params(params)
+                    .param("cursorSort", cursor.sortValue())
+                    .param("cursorId", cursor.id())
+                    .param("limit", size + 1)
+                    .query(mapper)
+                    .list();
+        } else {
+            list = jdbcClient.sql(countInQuery ? offsetWithTotalSql : offsetSql)
+                    .params(params)
+                    .param("limit", size + 1)
+                    .param("offset", request.page() * size)
+                    .query(mapper)
+                    .list();
+        }
+
+        if (countInQuery) {
+            // A page past the end returns no rows and therefore no total; count separately only then.
+            if (list.isEmpty() && (request.hasCursor() || request.page() > 0)) {
+                total[0] = jdbcClient.sql(countSql).params(params).query(Long.class).single();
+            }
+            if (countCache != null) {
+                countCache.put(countKey, total[0]);
+            }
+        }
+
+        boolean hasNext = list.size() > size;
+        if (hasNext) {
+            list = list.subList(0, size);
+        }
+        String nextCursor = hasNext && size > 0 ? cursorOf(list.get(size - 1)) : null;
+        Long totalElements = !request.withTotal() ? null : cachedTotal != null ? cachedTotal : total[0];
+        return PageResponse.of(list, request.page(), size, totalElements, cachedTotal == null, hasNext, nextCursor);
+    }
+
+    private String cursorOf(T row) {
+        return new PageCursor(sortKey.apply(row), idKey.apply(row)).encode();
+    }
+}
@@ -0,0 +1,53 @@
+package com.portal.util;
+
+import com.portal.dto.PageRequest;
+
+import java.util.Map;
+
+/**
+ * One request as the handlers see it, parsed once by the router: the matched route, the caller's
+ * JWT role and subject, query and path parameters, paging and the body already decoded to bytes.
+ * The parameter maps are read-only views; the body array is shared and must not be modified.
+ */
+public record RequestContext(
+        String method,
+        String path,
+        String route,
+        String role,
+        String sub,
+        Map<String, String> queryParameters,
+        Map<String, String> pathParameters,
+        PageRequest pageRequest,
+        String ifNoneMatch,
+        byte[] body
+) {
+    public String queryParam(String key) {
+        return queryParameters.get(key);
+    }
+
+    /** A path parameter captured by the route, falling back to the query parameter of the same name. */
+    public String param(String key) {
+        String value = pathParameters.get(key);
+        return (value != null) ? value : queryParameters.get(key);
+    }
+
+    public int intQueryParam(String key, int defaultValue) {
+        String value = queryParameters.get(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public boolean hasBody() {
+        if (body == null) return false;
+        for (byte b : body) {
+            if (!Character.isWhitespace(b)) return true;
+        }
+        return false;
+    }
+}
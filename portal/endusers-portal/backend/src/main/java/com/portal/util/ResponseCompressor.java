@@ -0,0 +1,151 @@
+package com.portal.util;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayV2HTTPResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static com.portal.util.EnvUtil.readLongEnv;
+
+/**
+ * Gzips JSON response bodies above a size threshold when the client sends
+ * {@code Accept-Encoding: gzip}, encoding the JSON to UTF-8 only then, and returns it base64-encoded
+ * as API Gateway requires for binary bodies. The defaults come from
+ * {@code COMPRESSION_MIN_BYTES} (1024) and {@code COMPRESSION_LEVEL} (6, 0 = off); individual routes
+ * override them with {@code COMPRESSION_ROUTES}, e.g.
+ * {@code GET /api/joblist=512:4,GET /api/user=0:0} ({@code route=minBytes:level}, comma separated).
+ */
+@Component
+public class ResponseCompressor {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCompressor.class);
+
+    static final String GZIP_ETAG_SUFFIX = "-gzip";
+
+    record Settings(int minBytes, int level) {}
+
+    private record Negotiated(Settings settings, boolean gzip) {}
+
+    private final Settings defaults;
+    private final Map<String, Settings> routes;
+    private final ThreadLocal<Negotiated> current = new ThreadLocal<>();
+
+    public ResponseCompressor() {
+        this.defaults = new Settings((int) readLongEnv("COMPRESSION_MIN_BYTES", 1_024),
+                (int) readLongEnv("COMPRESSION_LEVEL", 6));
+        this.routes = parseRoutes(System.getenv("COMPRESSION_ROUTES"));
+    }
+
+    /** Records what the current request accepts; the router calls this before dispatching. */
+    public void begin(String acceptEncoding, String routeKey) {
+        current.set(new Negotiated(routes.getOrDefault(routeKey, defaults), acceptsGzip(acceptEncoding)));
+    }
+
+    public void end() {
+        current.remove();
+    }
+
+    /**
+     * Builds a response around a JSON body, gzipping it when the current request allows and the
+     * route's settings call for it. Outside a request the body is returned as is. The threshold is
+     * compared with the body's length in characters, which is its size for ASCII JSON.
+     */
+    public APIGatewayV2HTTPResponse build(int statusCode, Map<String, String> headers, String body) {
+        Negotiated negotiated = current.get();
+        if (negotiated == null || negotiated.settings().level() <= 0 || body.length() < negotiated.settings().minBytes()) {
+            return plain(statusCode, headers, body);
+        }
+        Map<String, String> varied = new HashMap<>(headers);
+        varied.put("vary", "accept-encoding");
+        if (!negotiated.gzip()) {
+            return plain(statusCode, varied, body);
+        }
+        byte[] plain = body.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = gzip(plain, negotiated.settings().level());
+        if (compressed.length >= plain.length) {
+            return plain(statusCode, varied, body);
+        }
+        varied.put("content-encoding", "gzip");
+        // The gzipped bytes are a different representation, so they get their own strong tag
+        String etag = varied.get("etag");
+        if (etag != null && etag.endsWith("\"")) {
+            varied.put("etag", etag.substring(0, etag.length() - 1) + GZIP_ETAG_SUFFIX + "\"");
+        }
+        return APIGatewayV2HTTPResponse.builder()
+                .withStatusCode(statusCode)
+                .withHeaders(varied)
+                .withBody(Base64.getEncoder().encodeToString(compressed))
+                .withIsBase64Encoded(true)
+                .build();
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] tokens = part.split(";");
+            String coding = tokens[0].strip();
+            if (!coding.equals("gzip") && !coding.equals("*")) continue;
+            boolean refused = false;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].strip();
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (!refused) return true;
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] plain, int level) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Math.min(level, 9));
+            }
+        }) {
+            gzip.write(plain);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static APIGatewayV2HTTPResponse plain(int statusCode, Map<String, String> headers, String body) {
+        return APIGatewayV2HTTPResponse.builder()
+                .withStatusCode(statusCode)
+                .withHeaders(headers)
+                .withBody(body)
+                .build();
+    }
+
+    private static Map<String, Settings> parseRoutes(String spec) {
+        Map<String, Settings> routes = new HashMap<>();
+        if (spec == null || spec.isBlank()) return routes;
+        for (String entry : spec.split(",")) {
+            int eq = entry.lastIndexOf('=');
+            String[] values = eq < 0 ? new String[0] : entry.substring(eq + 1).split(":");
+            try {
+                routes.put(entry.substring(0, eq).strip(),
+                        new Settings(Integer.parseInt(values[0].strip()), Integer.parseInt(values[1].strip())));
+            } catch (RuntimeException e) {
+                log.warn("Ignoring malformed COMPRESSION_ROUTES entry '{}'", entry);
+            }
+        }
+        return routes;
+    }
+}
@@ -0,0 +1,127 @@
+package com.portal.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the versioned scripts under {@code classpath:db/migration} ({@code V<n>__<description>.sql})
+ * in version order and records each in {@code schema_migrations}. It runs as a deploy step
+ * ({@code --migrate}), never inside a Lambda cold start. Each version is claimed by inserting its
+ * row before the script runs, so a second runner started at the same time stops at the first
+ * version it cannot claim instead of racing on the DDL. DSQL runs one DDL statement per
+ * transaction, so statements commit one by one; when a script fails its claim is released, but
+ * statements that already committed stay and have to be finished by hand before the next run.
+ * Clusters created before the table existed must be adopted with a baseline version, whose
+ * scripts are recorded without being run; migrating such a cluster without one is refused.
+ */
+public class SchemaMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final String LOCATION = "classpath:db/migration/V*__*.sql";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE IF NOT EXISTS %s (
+                version INTEGER PRIMARY KEY,
+                description VARCHAR(255) NOT NULL,
+                applied_at TIMESTAMPTZ NOT NULL DEFAULT now()
+            )""".formatted(TableNames.SCHEMA_MIGRATIONS);
+
+    private static final String APPLIED_SQL = "SELECT version FROM %s".formatted(TableNames.SCHEMA_MIGRATIONS);
+
+    private static final String CLAIM_SQL = "INSERT INTO %s (version, description) VALUES (?, ?) ON CONFLICT (version) DO NOTHING"
+            .formatted(TableNames.SCHEMA_MIGRATIONS);
+
+    private static final String RELEASE_SQL = "DELETE FROM %s WHERE version = ?"
+            .formatted(TableNames.SCHEMA_MIGRATIONS);
+
+    private static final String TABLE_EXISTS_SQL = "SELECT COUNT(*) FROM pg_class WHERE relname = ? AND relkind = 'r'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long baselineVersion;
+
+    public SchemaMigrator(JdbcTemplate jdbcTemplate, long baselineVersion) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.baselineVersion = baselineVersion;
+    }
+
+    record Migration(int version, String description, Resource script) {}
+
+    public void migrate() throws IOException {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+        Set<Integer> applied = new HashSet<>(jdbcTemplate.queryForList(APPLIED_SQL, Integer.class));
+        boolean adopt = applied.isEmpty() && baselineVersion > 0;
+        if (applied.isEmpty() && !adopt && tableExists(TableNames.USERS)) {
+            throw new IllegalStateException("Schema already exists but has no recorded migrations;"
+                    + " set DB_MIGRATE_BASELINE_VERSION to the last version it already has");
+        }
+
+        for (Migration migration : findMigrations()) {
+            if (applied.contains(migration.version())) continue;
+            if (jdbcTemplate.update(CLAIM_SQL, migration.version(), migration.description()) == 0) {
+                log.warn("Schema migration V{} is claimed by another run; stopping", migration.version());
+                return;
+            }
+            if (adopt && migration.version() <= baselineVersion) {
+                log.info("Baselining schema migration V{} ({})", migration.version(), migration.description());
+                continue;
+            }
+            log.info("Applying schema migration V{} ({})", migration.version(), migration.description());
+            try {
+                for (String statement : statements(migration.script().getContentAsString(StandardCharsets.UTF_8))) {
+                    jdbcTemplate.execute(statement);
+                }
+            } catch (RuntimeException e) {
+                jdbcTemplate.update(RELEASE_SQL, migration.version());
+                throw e;
+            }
+        }
+    }
+
+    private boolean tableExists(String name) {
+        Long count = jdbcTemplate.queryForObject(TABLE_EXISTS_SQL, Long.class, name);
+        return count != null && count > 0;
+    }
+
+    private static List<Migration> findMigrations() throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+            Matcher m = FILE_NAME.matcher(resource.getFilename() == null ? "" : resource.getFilename());
+            if (!m.matches()) continue;
+            migrations.add(new Migration(Integer.parseInt(m.group(1)), m.group(2).replace('_', ' '), resource));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        return migrations;
+    }
+
+    /** Splits a script on semicolons after dropping {@code --} comment lines. */
+    static List<String> statements(String script) {
+        StringBuilder sql = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            if (!line.strip().startsWith("--")) {
+                sql.append(line).append('\n');
+            }
+        }
+        List<String> statements = new ArrayList<>();
+        for (String statement : sql.toString().split(";")) {
+            if (!statement.isBlank()) {
+                statements.add(statement.strip());
+            }
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,20 @@
+package com.portal.util;
+
+/**
+ * Rejected client input. Handlers already turn {@link IllegalArgumentException} into a 400, so this
+ * only differs in skipping the stack trace: invalid input is routine and the trace would never be
+ * looked at.
+ */
+public class ValidationException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ValidationException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
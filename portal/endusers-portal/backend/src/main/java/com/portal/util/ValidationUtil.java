@@ -1,36 +1,77 @@
 package com.portal.util;
 
-import java.util.UUID;
-
+/**
+ * Field checks for service input. UUIDs and emails are scanned by hand rather than parsed or
+ * regex-matched, so a valid value costs no allocation; failures throw a stackless
+ * {@link ValidationException}.
+ */
 public final class ValidationUtil {
 
     private ValidationUtil() {}
 
+    private static final int UUID_LENGTH = 36;
+
     public static void validateUuid(String value, String fieldName) {
-        if (value == null || value.isBlank()) {
-            throw new IllegalArgumentException("Field '" + fieldName + "' must be a valid UUID");
-        }
-        try {
-            UUID.fromString(value);
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Field '" + fieldName + "' must be a valid UUID");
+        if (!isUuid(value)) {
+            throw new ValidationException("Field '" + fieldName + "' must be a valid UUID");
         }
     }
 
     public static void validateRequired(String value, String fieldName) {
         if (value == null || value.isBlank()) {
-            throw new IllegalArgumentException("Field '" + fieldName + "' is required");
+            throw new ValidationException("Field '" + fieldName + "' is required");
         }
     }
 
     public static void validateEmail(String value) {
         validateRequired(value, "email");
-        if (!value.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$")) {
-            throw new IllegalArgumentException("Field 'email' must be a valid email address");
+        if (!isEmail(value)) {
+            throw new ValidationException("Field 'email' must be a valid email address");
         }
     }
 
+    /** True for the canonical 8-4-4-4-12 hex form, in either case. */
+    public static boolean isUuid(String value) {
+        if (value == null || value.length() != UUID_LENGTH) return false;
+        if (value.charAt(8) != '-' || value.charAt(13) != '-' || value.charAt(18) != '-' || value.charAt(23) != '-') {
+            return false;
+        }
+        return isHexRun(value, 0, 8) && isHexRun(value, 9, 13) && isHexRun(value, 14, 18)
+                && isHexRun(value, 19, 23) && isHexRun(value, 24, UUID_LENGTH);
+    }
+
+    /** Same acceptance as {@code ^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$}: one '@' with a non-empty part on each side. */
+    public static boolean isEmail(String value) {
+        if (value == null) return false;
+        int at = -1;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '@') {
+                if (at >= 0 || i == 0) return false;
+                at = i;
+            } else if (!isAsciiAlphanumeric(c) && c != '.' && c != '-' && (at >= 0 || (c != '+' && c != '_'))) {
+                return false;
+            }
+        }
+        return at > 0 && at < value.length() - 1;
+    }
+
     public static String blankToNull(String value) {
         return (value == null || value.isBlank()) ? null : value;
     }
+
+    private static boolean isHexRun(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isHex(value.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isAsciiAlphanumeric(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
 }
@@ -0,0 +1,14 @@
+package com.portal.util;
+
+/**
+ * Thrown when a write keeps failing DSQL's optimistic concurrency check after all retries, or
+ * when the retry budget is spent. The write did not commit and is safe to resubmit.
+ */
+public class WriteConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public WriteConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
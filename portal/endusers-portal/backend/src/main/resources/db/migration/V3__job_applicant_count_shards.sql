@@ -0,0 +1,14 @@
+-- Sharded applicant counter
+-- Applications add +1 to a random shard row instead of updating the hot jobs row.
+-- Shards are periodically folded into jobs.applicant_count and deleted.
+-- (Numbered after db/seed/V2__seed_data.sql so versions stay unique across locations.)
+
+-- ============================================
+-- JOB APPLICANT COUNT SHARDS TABLE
+-- ============================================
+CREATE TABLE job_applicant_count_shards (
+    job_id UUID NOT NULL,
+    shard INTEGER NOT NULL,
+    delta BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (job_id, shard)
+);
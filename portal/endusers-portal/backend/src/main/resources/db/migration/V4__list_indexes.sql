@@ -0,0 +1,24 @@
+-- Composite indexes for the hot list and lookup queries
+-- Every list filters on is_deleted = FALSE and pages newest-first by its timestamp with id as
+-- tie-breaker. DSQL has no partial indexes, so is_deleted is an index column ahead of the sort key.
+-- The single-column indexes from V1 stay in place until these finish building.
+
+-- ============================================
+-- JOBS
+-- ============================================
+CREATE INDEX ASYNC idx_jobs_company_status_created ON jobs (company_id, status, is_deleted, created_at, id);
+CREATE INDEX ASYNC idx_jobs_status_created ON jobs (status, is_deleted, created_at, id);
+CREATE INDEX ASYNC idx_jobs_active_created ON jobs (is_deleted, created_at, id);
+
+-- ============================================
+-- JOB APPLICATIONS
+-- ============================================
+CREATE INDEX ASYNC idx_job_applications_job_applied ON job_applications (job_id, is_deleted, applied_at, id);
+CREATE INDEX ASYNC idx_job_applications_candidate_applied ON job_applications (candidate_id, is_deleted, applied_at, id);
+
+-- ============================================
+-- CANDIDATES / COMPANIES / USERS
+-- ============================================
+CREATE INDEX ASYNC idx_candidates_active_created ON candidates (is_deleted, created_at, id);
+CREATE INDEX ASYNC idx_companies_active_created ON companies (is_deleted, created_at, id);
+CREATE INDEX ASYNC idx_users_active_created ON users (is_deleted, created_at, id);
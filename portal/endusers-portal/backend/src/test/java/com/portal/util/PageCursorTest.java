@@ -0,0 +1,41 @@
+package com.portal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    private static final String ID = "7d3c9c2e-0b1a-4f7e-9a43-5f2b8e6a1c10";
+
+    @Test
+    void decodesWhatItEncodes() {
+        for (String sortValue : new String[] {"2026-10-01 09:30:00+00", "2026-10-01 09:30:00.123456+00"}) {
+            PageCursor cursor = new PageCursor(sortValue, ID);
+            assertThat(PageCursor.decode(cursor.encode())).isEqualTo(cursor);
+        }
+    }
+
+    @Test
+    void rejectsTamperedSortValue() {
+        for (String sortValue : new String[] {"not a time", "2026-13-01 09:30:00+00", "1' OR '1'='1", ""}) {
+            assertThatThrownBy(() -> PageCursor.decode(token(sortValue + "|" + ID)))
+                    .isInstanceOf(ValidationException.class);
+        }
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        for (String token : new String[] {"%%%", token("no-separator"), token("2026-10-01 09:30:00+00|not-a-uuid")}) {
+            assertThatThrownBy(() -> PageCursor.decode(token)).isInstanceOf(ValidationException.class);
+        }
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
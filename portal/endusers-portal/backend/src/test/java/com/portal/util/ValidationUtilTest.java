@@ -0,0 +1,84 @@
+package com.portal.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.fail;
+
+class ValidationUtilTest {
+
+    // What validateEmail matched before the hand-written scanner
+    private static final Pattern EMAIL_REGEX = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
+    private static final Pattern CANONICAL_UUID = Pattern.compile(
+            "^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$");
+
+    private static final String EMAIL_ALPHABET = "aZ09+_.-@@ !é٠";
+    private static final String UUID_ALPHABET = "0aF9fg-G ";
+    private static final int SAMPLES = 500_000;
+
+    @Test
+    void emailScannerAcceptsExactlyWhatTheRegexDid() {
+        Random random = new Random(25);
+        for (int n = 0; n < SAMPLES; n++) {
+            String value = randomString(random, EMAIL_ALPHABET, random.nextInt(10));
+            if (ValidationUtil.isEmail(value) != EMAIL_REGEX.matcher(value).matches()) {
+                fail("isEmail disagrees with the regex on '%s'", value);
+            }
+        }
+    }
+
+    @Test
+    void uuidScannerAcceptsExactlyTheCanonicalForm() {
+        Random random = new Random(25);
+        for (int n = 0; n < SAMPLES; n++) {
+            String value = n % 2 == 0 ? mutate(random, UUID.randomUUID().toString())
+                    : randomString(random, UUID_ALPHABET, 34 + random.nextInt(4));
+            boolean canonical = CANONICAL_UUID.matcher(value).matches();
+            if (ValidationUtil.isUuid(value) != canonical) {
+                fail("isUuid disagrees with the canonical form on '%s'", value);
+            }
+            if (canonical) {
+                assertThat(UUID.fromString(value).toString()).isEqualToIgnoringCase(value);
+            }
+        }
+    }
+
+    @Test
+    void rejectsWithValidationException() {
+        assertThatThrownBy(() -> ValidationUtil.validateUuid("1-1-1-1-1", "id")).isInstanceOf(ValidationException.class)
+                .hasMessage("Field 'id' must be a valid UUID");
+        assertThatThrownBy(() -> ValidationUtil.validateUuid(null, "id")).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> ValidationUtil.validateEmail("a@")).isInstanceOf(ValidationException.class)
+                .hasMessage("Field 'email' must be a valid email address");
+        assertThatThrownBy(() -> ValidationUtil.validateEmail(" ")).isInstanceOf(ValidationException.class)
+                .hasMessage("Field 'email' is required");
+        assertThat(new ValidationException("x").getStackTrace()).isEmpty();
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    // Valid UUIDs with, half the time, one character replaced, dropped or added
+    private static String mutate(Random random, String uuid) {
+        StringBuilder sb = new StringBuilder(random.nextBoolean() ? uuid : uuid.toUpperCase());
+        int at = random.nextInt(sb.length());
+        char c = UUID_ALPHABET.charAt(random.nextInt(UUID_ALPHABET.length()));
+        switch (random.nextInt(6)) {
+            case 0 -> sb.setCharAt(at, c);
+            case 1 -> sb.deleteCharAt(at);
+            case 2 -> sb.insert(at, c);
+            default -> { }
+        }
+        return sb.toString();
+    }
+}